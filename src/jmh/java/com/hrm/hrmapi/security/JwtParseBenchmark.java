@@ -0,0 +1,85 @@
+package com.hrm.hrmapi.security;
+
+import com.hrm.hrmapi.domain.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput của JwtService.parse: parse thẳng bằng JwtParser (không cache),
+ * cache hit (cùng bearer token gửi lại) và cache miss (băm SHA-256 + parse, không nhớ được).
+ * Chạy: mvn -Pjmh test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtParseBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+
+    private JwtService cached;
+    private JwtService full;      // max-size 0: lần nào cũng miss
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = service(10_000);
+        full = service(0);
+        parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        token = cached.issue(User.builder()
+                .id("64f0c0ffee0000000000abcd")
+                .email("someone@example.com")
+                .role(User.Role.EMPLOYEE)
+                .employeeId("64f0c0ffee0000000000dcba")
+                .build());
+        cached.parse(token);
+    }
+
+    private static JwtService service(int verifiedMaxSize) {
+        var s = new JwtService();
+        ReflectionTestUtils.setField(s, "secret", SECRET);
+        ReflectionTestUtils.setField(s, "ttl", 60L);
+        ReflectionTestUtils.setField(s, "verifiedMaxSize", verifiedMaxSize);
+        ReflectionTestUtils.setField(s, "mode", "claims");
+        ReflectionTestUtils.setField(s, "accessTtl", 60L);
+        s.init();
+        return s;
+    }
+
+    @Benchmark
+    public Jws<Claims> parserOnly() {
+        return parser.parseClaimsJws(token);
+    }
+
+    @Benchmark
+    public Jws<Claims> cacheHit() {
+        return cached.parse(token);
+    }
+
+    @Benchmark
+    public Jws<Claims> cacheMiss() {
+        return full.parse(token);
+    }
+}
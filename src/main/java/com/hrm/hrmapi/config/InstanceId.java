@@ -0,0 +1,43 @@
+// src/main/java/com/hrm/hrmapi/config/InstanceId.java
+package com.hrm.hrmapi.config;
+
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * Định danh của instance đang chạy (host:pid:random) – dùng làm owner khi claim job nền
+ * (import bảng công, recalc trigger) để instance khác chỉ nhận lại job khi lease đã hết hạn.
+ */
+@Component
+public class InstanceId {
+
+    private final String host;
+    private final String id;
+
+    public InstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        this.host = host;
+        id = host + ":" + ProcessHandle.current().pid() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String get() {
+        return id;
+    }
+
+    /** Hostname – file spool nằm trên đĩa local nên chỉ instance cùng host đọc được */
+    public String host() {
+        return host;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,32 @@
+// src/main/java/com/hrm/hrmapi/config/MongoPoolConfig.java
+package com.hrm.hrmapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kích thước connection pool MongoDB – chỉ khi bật profile vthreads (giá trị trong application-vthreads.yml).
+ * Request chạy trên virtual thread nên số request đồng thời không còn bị giới hạn bởi thread pool Tomcat
+ * -> pool Mongo là chỗ giới hạn thật; chờ quá max-wait-ms thì fail nhanh.
+ * Không bật profile: giữ nguyên cấu hình của driver / tham số trong spring.data.mongodb.uri (maxPoolSize, ...).
+ */
+@Configuration
+@Profile("vthreads")
+public class MongoPoolConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(
+            @Value("${hrm.mongo.pool.max-size}") int maxSize,
+            @Value("${hrm.mongo.pool.min-size}") int minSize,
+            @Value("${hrm.mongo.pool.max-wait-ms}") long maxWaitMs) {
+        return b -> b.applyToConnectionPoolSettings(p -> p
+                .maxSize(maxSize)
+                .minSize(minSize)
+                .maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,11 @@
+// src/main/java/com/hrm/hrmapi/config/SchedulingConfig.java
+package com.hrm.hrmapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Bật @Scheduled (refresh WorkSchedule giữa các instance, ...) */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
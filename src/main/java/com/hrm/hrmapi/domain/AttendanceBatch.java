@@ -19,8 +19,20 @@ public class AttendanceBatch {
     private String importedBy;
     private Instant importedAt;
 
+    private String status;             // QUEUED | RUNNING | DONE | FAILED
+    private String spoolPath;          // file CSV tạm cho job async (xoá khi xong) – nằm trên đĩa local của spoolHost
+    private String spoolHost;          // host nhận upload; chỉ instance trên host này chạy được batch
+    private String owner;              // InstanceId đang chạy batch; lastProgressAt là heartbeat
+    private Integer expectedRows;      // số dòng dữ liệu đếm lúc nhận file (để tính ETA)
+    private Instant startedAt;
+    private Instant finishedAt;
+    private Instant lastProgressAt;
+
     private Integer totalRows;
     private Integer success;
     private Integer failed;
     private List<String> errors;
+
+    private Long durationMs;           // thời gian chạy import
+    private Double rowsPerSecond;      // throughput = totalRows / thời gian
 }
@@ -0,0 +1,47 @@
+package com.hrm.hrmapi.domain;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tổng hợp chấm công theo (nhân viên, tháng), tính sẵn từ attendance_records –
+ * xem AttendanceMonthlyService (cập nhật khi record đổi, rebuild toàn bộ).
+ */
+@Document("attendance_monthly")
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class AttendanceMonthly {
+    @Id private String id;              // employeeId|yyyy-MM
+
+    private String employeeId;
+    private String month;               // yyyy-MM
+
+    private int records;                // số ngày có record
+
+    @Builder.Default
+    private Map<String, Integer> statusDays = new HashMap<>();   // status -> số ngày (null tính là PRESENT)
+
+    private int lateMinutes;
+    private int earlyMinutes;
+
+    // OT tách theo loại ngày (late/early chỉ phát sinh ngày thường)
+    private int otMinutesWeekday;
+    private int otMinutesWeekend;
+    private int otMinutesHoliday;
+
+    private Instant updatedAt;
+    private Instant sourceUpdatedAt;    // updatedAt lớn nhất của các record gốc – chặn ghi đè bằng bản tính từ dữ liệu cũ
+
+    public static String idOf(String employeeId, YearMonth month) {
+        return employeeId + "|" + month;
+    }
+
+    public int days(String status) {
+        return statusDays == null ? 0 : statusDays.getOrDefault(status, 0);
+    }
+}
@@ -24,6 +24,7 @@ public class AttendanceRecord {
 
     private String source;
     private String status;
+    private Boolean statusManual;      // true = status do quản lý đặt tay (PATCH) – applyRules/recalc không suy lại
     private Integer lateMinutes;
     private Integer earlyMinutes;
     private Integer otMinutes;
@@ -1,11 +1,13 @@
 // domain/Employee.java
 package com.hrm.hrmapi.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDate;
+import java.util.List;
 
 @Document("employees")
 @Data @Builder @NoArgsConstructor @AllArgsConstructor
@@ -15,6 +17,10 @@ public class Employee {
     @Indexed(unique = true)          // mã nhân viên duy nhất
     private String code;
 
+    @JsonIgnore
+    @Indexed(unique = true)          // code trim + lowercase – xem EmployeeCodes
+    private String codeNormalized;
+
     @Indexed                         // hay lọc theo phòng ban
     private String department;
 
@@ -27,6 +33,10 @@ public class Employee {
 
     private Emergency emergencyContact;
 
+    // prefix token (lowercase, bỏ dấu) cho tìm kiếm; tự tính khi save – xem EmployeeSearchTokens
+    @JsonIgnore
+    private List<String> searchTokens;
+
     @Data public static class Emergency {
         private String name; private String phone; private String relation;
     }
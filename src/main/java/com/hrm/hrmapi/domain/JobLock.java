@@ -0,0 +1,22 @@
+// src/main/java/com/hrm/hrmapi/domain/JobLock.java
+package com.hrm.hrmapi.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/** Khoá cho job nền chỉ được chạy trên 1 instance (vd backfill attendance_monthly) – lease theo heartbeat */
+@Document("job_locks")
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class JobLock {
+    @Id private String id;             // tên job
+    private String owner;              // InstanceId đang giữ; null = không ai giữ
+    private Instant heartbeatAt;       // quá lease thì instance khác lấy lại
+    private boolean done;              // lần chạy gần nhất đã xong trọn vẹn
+    private Instant finishedAt;
+}
@@ -16,5 +16,6 @@ public class LeaveType {
     private String code;
     private String name;
     private boolean deductQuota;
+    private Boolean paid;           // false = nghỉ không lương (trừ ngày công khi tính lương)
 
 }
@@ -0,0 +1,43 @@
+// src/main/java/com/hrm/hrmapi/domain/RecalcTrigger.java
+package com.hrm.hrmapi.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/** Recalc nền do đổi WorkSchedule/Holiday – lưu DB để restart không mất trigger đang chờ */
+@Document("recalc_triggers")
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class RecalcTrigger {
+    @Id private String id;
+    private String source;             // SCHEDULE | HOLIDAY
+    private String description;
+    private List<Range> ranges;
+    private List<LocalDate> skippedDates;  // ngày bị bỏ qua vì thuộc kỳ lương đã chốt (LOCKED/PAID) hoặc kỳ cũ chưa mở
+
+    private String status;             // QUEUED | RUNNING | DONE | FAILED
+    private String owner;              // InstanceId đang chạy
+    private Instant heartbeatAt;       // owner cập nhật theo tiến độ; quá lease thì instance khác nhận lại
+
+    private long pending;
+    private long processed;
+    private long changed;
+
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class Range {
+        private LocalDate from;
+        private LocalDate to;
+    }
+}
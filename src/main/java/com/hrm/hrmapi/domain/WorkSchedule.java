@@ -34,4 +34,6 @@ public class WorkSchedule {
     private Set<DayOfWeek> workingDays;         // mặc định MON..FRI
 
     private Instant updatedAt;
+
+    private Long version;                       // tăng mỗi lần upsert, để client/instance khác phát hiện stale
 }
\ No newline at end of file
@@ -62,7 +62,8 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ProblemDetail> handleRSE(ResponseStatusException ex, HttpServletRequest req) {
         var status = ex.getStatusCode() instanceof HttpStatus hs ? hs : HttpStatus.valueOf(ex.getStatusCode().value());
         var pd = ProblemFactory.of(status, ex.getReason(), ex.getReason(), req, "ERROR");
-        return ResponseEntity.status(status).body(pd);
+        // giữ header của exception (vd Retry-After của ServiceOverloadedException)
+        return ResponseEntity.status(status).headers(ex.getHeaders()).body(pd);
     }
 
     /* ===== Lỗi nghiệp vụ của mày ===== */
@@ -0,0 +1,8 @@
+package com.hrm.hrmapi.error;
+
+/** Job nền không còn giữ lease (owner đã đổi): instance khác đã nhận lại, phải dừng và không ghi đè trạng thái */
+public class LeaseLostException extends RuntimeException {
+    public LeaseLostException(String jobId, String owner) {
+        super("Lease lost on job " + jobId + " (owner " + owner + ")");
+    }
+}
@@ -0,0 +1,22 @@
+package com.hrm.hrmapi.error;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/** 503 kèm Retry-After: server đang quá tải, client thử lại sau retryAfterSeconds giây */
+public class ServiceOverloadedException extends ResponseStatusException {
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String reason, long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
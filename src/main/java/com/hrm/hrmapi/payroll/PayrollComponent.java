@@ -20,4 +20,5 @@ public class PayrollComponent {
     private String expr;               // dùng khi calcType = FORMULA
     private Integer priority;          // thứ tự tính
     private boolean active;
+    private Long version;              // tăng khi sửa expr – cache formula đã compile theo id + version
 }
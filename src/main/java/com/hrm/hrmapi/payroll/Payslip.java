@@ -2,6 +2,7 @@ package com.hrm.hrmapi.payroll;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -11,6 +12,7 @@ import java.util.List;
 
 @Data @Builder @NoArgsConstructor @AllArgsConstructor
 @Document("payslips")
+@CompoundIndex(name = "cycle_employee", def = "{'cycleId': 1, 'employeeId': 1}", unique = true)
 public class Payslip {
     @Id private String id;
 
@@ -0,0 +1,15 @@
+package com.hrm.hrmapi.payroll;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** Projection gọn cho danh sách payslip trong kỳ (không kèm items/summary) */
+public interface PayslipRow {
+    String getId();
+    String getEmployeeId();
+    BigDecimal getGross();
+    BigDecimal getDeductions();
+    BigDecimal getNet();
+    String getStatus();
+    Instant getGeneratedAt();
+}
@@ -0,0 +1,22 @@
+// src/main/java/com/hrm/hrmapi/repo/AttendanceBatchRepoCustom.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.AttendanceBatch;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface AttendanceBatchRepoCustom {
+    /**
+     * Nhận (atomically) batch cũ nhất mà instance này chạy được và chuyển sang RUNNING với owner = instance:
+     * QUEUED, hoặc RUNNING mà lastProgressAt cũ hơn staleBefore (owner đã chết).
+     * Chỉ batch có spool trên host này (spool là file local); an toàn khi nhiều worker/instance cùng poll.
+     */
+    Optional<AttendanceBatch> claimNext(String owner, String host, Instant staleBefore);
+
+    /** Ghi đè batch chỉ khi owner trong DB vẫn là owner này; false nếu lease đã mất (instance khác đã nhận lại) */
+    boolean saveIfOwner(AttendanceBatch batch, String owner);
+
+    /** Trả các batch RUNNING quá lease về QUEUED (bỏ owner) để instance trên host của spool nhận lại; trả về số batch */
+    long releaseExpired(Instant staleBefore);
+}
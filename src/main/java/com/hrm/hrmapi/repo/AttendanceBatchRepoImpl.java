@@ -0,0 +1,59 @@
+// src/main/java/com/hrm/hrmapi/repo/AttendanceBatchRepoImpl.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.AttendanceBatch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public class AttendanceBatchRepoImpl implements AttendanceBatchRepoCustom {
+    @Autowired
+    private MongoTemplate mongo;
+
+    @Override
+    public Optional<AttendanceBatch> claimNext(String owner, String host, Instant staleBefore) {
+        Criteria onThisHost = new Criteria().orOperator(
+                Criteria.where("spoolHost").is(host),
+                Criteria.where("spoolHost").exists(false));       // batch cũ trước khi có spoolHost
+        Criteria claimable = new Criteria().orOperator(
+                Criteria.where("status").is("QUEUED"),
+                Criteria.where("status").is("RUNNING").and("lastProgressAt").lt(staleBefore));
+        Query query = new Query(new Criteria().andOperator(Criteria.where("spoolPath").ne(null), onThisHost, claimable))
+                .with(Sort.by(Sort.Direction.ASC, "importedAt"));
+        Instant now = Instant.now();
+        Update update = new Update()
+                .set("status", "RUNNING")
+                .set("owner", owner)
+                .set("startedAt", now)
+                .set("lastProgressAt", now);
+        return Optional.ofNullable(mongo.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), AttendanceBatch.class));
+    }
+
+    @Override
+    public boolean saveIfOwner(AttendanceBatch batch, String owner) {
+        Query query = new Query(Criteria.where("_id").is(batch.getId()).and("owner").is(owner));
+        return mongo.findAndReplace(query, batch) != null;
+    }
+
+    @Override
+    public long releaseExpired(Instant staleBefore) {
+        // chỉ batch async (có spool); import đồng bộ không chạy lại được
+        Query query = new Query(Criteria.where("status").is("RUNNING")
+                .and("lastProgressAt").lt(staleBefore)
+                .and("spoolPath").ne(null));
+        Update update = new Update()
+                .set("status", "QUEUED")
+                .unset("owner");
+        return mongo.updateMulti(query, update, AttendanceBatch.class).getModifiedCount();
+    }
+}
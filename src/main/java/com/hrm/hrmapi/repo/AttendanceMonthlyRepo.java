@@ -0,0 +1,12 @@
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.AttendanceMonthly;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AttendanceMonthlyRepo extends MongoRepository<AttendanceMonthly, String>, AttendanceMonthlyRepoCustom {
+    List<AttendanceMonthly> findByMonthIn(Collection<String> months);
+    List<AttendanceMonthly> findByEmployeeIdInAndMonthIn(Collection<String> employeeIds, Collection<String> months);
+}
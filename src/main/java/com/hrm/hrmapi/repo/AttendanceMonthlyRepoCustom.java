@@ -0,0 +1,25 @@
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.AttendanceMonthly;
+import com.hrm.hrmapi.web.dto.report.AttendanceMonthlySummary;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AttendanceMonthlyRepoCustom {
+    /** Ghi đè các document theo _id (upsert) và xoá các _id không còn record nào – 1 lệnh bulk unordered */
+    void bulkReplace(List<AttendanceMonthly> docs, Collection<String> removeIds);
+
+    /**
+     * Như bulkReplace nhưng chỉ ghi đè khi document đang lưu không mới hơn bản này
+     * (sourceUpdatedAt và records đều <=): 2 lần refresh cùng key chạy chồng nhau thì bản tính từ dữ liệu cũ
+     * ghi sau không đè lên bản mới. Trả về số document bị bỏ qua.
+     */
+    int replaceIfNotOlder(List<AttendanceMonthly> docs, Collection<String> removeIds);
+
+    /** Xoá document của tháng mà employeeId không nằm trong keep (dùng khi rebuild) */
+    long removeMonthExcept(String month, Collection<String> keep);
+
+    /** Tổng cả tháng từ attendance_monthly (O(số nhân viên)); department null = toàn công ty */
+    AttendanceMonthlySummary summary(String month, String department);
+}
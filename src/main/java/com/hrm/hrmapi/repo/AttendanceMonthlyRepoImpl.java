@@ -0,0 +1,116 @@
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.AttendanceMonthly;
+import com.hrm.hrmapi.web.dto.report.AttendanceMonthlySummary;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class AttendanceMonthlyRepoImpl implements AttendanceMonthlyRepoCustom {
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongo;
+
+    @Override
+    public void bulkReplace(List<AttendanceMonthly> docs, Collection<String> removeIds) {
+        if (docs.isEmpty() && removeIds.isEmpty()) return;
+
+        BulkOperations ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, AttendanceMonthly.class);
+        for (AttendanceMonthly m : docs) {
+            ops.replaceOne(new Query(Criteria.where("_id").is(m.getId())), m, FindAndReplaceOptions.options().upsert());
+        }
+        if (!removeIds.isEmpty()) {
+            ops.remove(new Query(Criteria.where("_id").in(removeIds)));
+        }
+        ops.execute();
+    }
+
+    @Override
+    public int replaceIfNotOlder(List<AttendanceMonthly> docs, Collection<String> removeIds) {
+        if (docs.isEmpty() && removeIds.isEmpty()) return 0;
+
+        BulkOperations ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, AttendanceMonthly.class);
+        for (AttendanceMonthly m : docs) {
+            Criteria c = Criteria.where("_id").is(m.getId()).and("records").lte(m.getRecords());
+            if (m.getSourceUpdatedAt() != null) {
+                c = c.orOperator(Criteria.where("sourceUpdatedAt").is(null),
+                        Criteria.where("sourceUpdatedAt").lte(m.getSourceUpdatedAt()));
+            }
+            ops.replaceOne(new Query(c), m, FindAndReplaceOptions.options().upsert());
+        }
+        if (!removeIds.isEmpty()) {
+            ops.remove(new Query(Criteria.where("_id").in(removeIds)));
+        }
+        try {
+            ops.execute();
+            return 0;
+        } catch (BulkOperationException e) {
+            // document mới hơn đã có: filter không khớp -> upsert đụng _id (duplicate key) = bỏ qua có chủ đích
+            int skipped = 0;
+            for (var err : e.getErrors()) {
+                if (err.getCode() != DUPLICATE_KEY) throw e;
+                skipped++;
+            }
+            return skipped;
+        }
+    }
+
+    @Override
+    public long removeMonthExcept(String month, Collection<String> keep) {
+        return mongo.remove(new Query(Criteria.where("month").is(month).and("employeeId").nin(keep)),
+                AttendanceMonthly.class).getDeletedCount();
+    }
+
+    @Override
+    public AttendanceMonthlySummary summary(String month, String department) {
+        List<AggregationOperation> ops = new ArrayList<>();
+        ops.add(Aggregation.match(Criteria.where("month").is(month)));
+        if (department != null && !department.isBlank()) ops.addAll(EmployeeLookup.join(department));
+        ops.add(ctx -> new Document("$group", new Document("_id", null)
+                .append("records", new Document("$sum", "$records"))
+                .append("late", new Document("$sum", "$lateMinutes"))
+                .append("early", new Document("$sum", "$earlyMinutes"))
+                .append("ot", new Document("$sum", new Document("$add",
+                        List.of("$otMinutesWeekday", "$otMinutesWeekend", "$otMinutesHoliday"))))
+                .append("leave", new Document("$sum", "$statusDays.LEAVE"))
+                .append("wfh", new Document("$sum", "$statusDays.WFH"))
+                .append("holiday", new Document("$sum", "$statusDays.HOLIDAY"))
+                .append("absent", new Document("$sum", "$statusDays.ABSENT"))));
+
+        Document d = mongo.aggregate(Aggregation.newAggregation(ops), "attendance_monthly", Document.class)
+                .getUniqueMappedResult();
+        if (d == null) return new AttendanceMonthlySummary();
+
+        int leave = intOf(d, "leave"), wfh = intOf(d, "wfh"), holiday = intOf(d, "holiday"), absent = intOf(d, "absent");
+        return AttendanceMonthlySummary.builder()
+                .totalLateMinutes(intOf(d, "late"))
+                .totalEarlyMinutes(intOf(d, "early"))
+                .totalOtMinutes(intOf(d, "ot"))
+                // giống báo cáo chi tiết: status khác LEAVE/WFH/HOLIDAY/ABSENT đều tính là có mặt
+                .totalPresentDays(intOf(d, "records") - leave - wfh - holiday - absent)
+                .totalLeaveDays(leave)
+                .totalWfhDays(wfh)
+                .totalHolidayDays(holiday)
+                .totalAbsentDays(absent)
+                .build();
+    }
+
+    private static int intOf(Document d, String key) {
+        Object v = d.get(key);
+        return v instanceof Number n ? n.intValue() : 0;
+    }
+}
@@ -7,7 +7,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
-public interface AttendanceRepo extends MongoRepository<AttendanceRecord, String> {
+public interface AttendanceRepo extends MongoRepository<AttendanceRecord, String>, AttendanceRepoCustom {
     Optional<AttendanceRecord> findByEmployeeIdAndDate(String employeeId, LocalDate date);
     List<AttendanceRecord> findByEmployeeIdAndDateBetween(String employeeId, LocalDate from, LocalDate to);
     List<AttendanceRecord> findByDateBetween(LocalDate from, LocalDate to);
@@ -0,0 +1,38 @@
+// src/main/java/com/hrm/hrmapi/repo/AttendanceRepoCustom.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.AttendanceRecord;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface AttendanceRepoCustom {
+    /** Lấy record của nhiều nhân viên trong khoảng ngày bằng 1 query (dùng cho import theo lô) */
+    List<AttendanceRecord> findByEmployeeIdInAndDateBetween(Collection<String> employeeIds, LocalDate from, LocalDate to);
+
+    /**
+     * Upsert nhiều record theo key (employeeId, date) – index emp_date – bằng 1 lệnh bulk unordered.
+     * Lỗi từng phần tử được ném ra qua BulkOperationException (index = vị trí trong list).
+     */
+    void bulkUpsert(List<AttendanceRecord> records);
+
+    /**
+     * Đọc record trong [from, to] (bao gồm 2 đầu) bằng cursor, không nạp hết vào heap.
+     * employeeIds null/rỗng = toàn công ty. Caller phải close stream.
+     */
+    Stream<AttendanceRecord> streamByDateBetween(LocalDate from, LocalDate to, Collection<String> employeeIds);
+
+    /** Đếm record trong [from, to] (bao gồm 2 đầu) */
+    long countByDateRange(LocalDate from, LocalDate to);
+
+    /** Ghi lại status/late/early/OT theo _id cho các record đã tính lại (bulk unordered) */
+    void bulkUpdateMetrics(List<AttendanceRecord> records);
+
+    /**
+     * Dòng báo cáo chấm công trong [from, to] bằng aggregation: $match ngày -> $lookup employees
+     * -> $match phòng ban (nếu có) -> $sort phòng ban, tên, ngày. Đọc bằng cursor; caller phải close stream.
+     */
+    Stream<AttendanceReportRow> streamReportRows(LocalDate from, LocalDate to, String department);
+}
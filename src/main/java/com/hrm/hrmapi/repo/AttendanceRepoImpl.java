@@ -0,0 +1,131 @@
+// src/main/java/com/hrm/hrmapi/repo/AttendanceRepoImpl.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.AttendanceRecord;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public class AttendanceRepoImpl implements AttendanceRepoCustom {
+    private static final String COLLECTION = "attendance_records";
+    private static final int REPORT_BATCH_SIZE = 1000;
+
+    @Autowired
+    private MongoTemplate mongo;
+
+    @Override
+    public List<AttendanceRecord> findByEmployeeIdInAndDateBetween(Collection<String> employeeIds,
+                                                                   LocalDate from, LocalDate to) {
+        if (employeeIds.isEmpty()) return List.of();
+        Query query = new Query(Criteria.where("employeeId").in(employeeIds)
+                .and("date").gte(from).lte(to));
+        return mongo.find(query, AttendanceRecord.class);
+    }
+
+    @Override
+    public void bulkUpsert(List<AttendanceRecord> records) {
+        if (records.isEmpty()) return;
+
+        BulkOperations ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, AttendanceRecord.class);
+        for (AttendanceRecord r : records) {
+            Query key = new Query(Criteria.where("employeeId").is(r.getEmployeeId())
+                    .and("date").is(r.getDate()));
+
+            Update u = new Update()
+                    .set("checkIn", r.getCheckIn())
+                    .set("checkOut", r.getCheckOut())
+                    .set("source", r.getSource())
+                    .set("status", r.getStatus())
+                    .set("lateMinutes", r.getLateMinutes())
+                    .set("earlyMinutes", r.getEarlyMinutes())
+                    .set("otMinutes", r.getOtMinutes())
+                    .set("note", r.getNote())
+                    .set("batchId", r.getBatchId())
+                    .set("updatedAt", r.getUpdatedAt() != null ? r.getUpdatedAt() : Instant.now())
+                    .setOnInsert("createdAt", r.getCreatedAt() != null ? r.getCreatedAt() : Instant.now());
+
+            ops.upsert(key, u);
+        }
+        ops.execute();
+    }
+
+    @Override
+    public Stream<AttendanceRecord> streamByDateBetween(LocalDate from, LocalDate to, Collection<String> employeeIds) {
+        Criteria c = Criteria.where("date").gte(from).lte(to);
+        if (employeeIds != null && !employeeIds.isEmpty()) c = c.and("employeeId").in(employeeIds);
+        Query query = new Query(c);
+        query.cursorBatchSize(2000);
+        return mongo.stream(query, AttendanceRecord.class);
+    }
+
+    @Override
+    public long countByDateRange(LocalDate from, LocalDate to) {
+        return mongo.count(new Query(Criteria.where("date").gte(from).lte(to)), AttendanceRecord.class);
+    }
+
+    @Override
+    public void bulkUpdateMetrics(List<AttendanceRecord> records) {
+        if (records.isEmpty()) return;
+
+        BulkOperations ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, AttendanceRecord.class);
+        for (AttendanceRecord r : records) {
+            ops.updateOne(new Query(Criteria.where("_id").is(r.getId())), new Update()
+                    .set("status", r.getStatus())
+                    .set("lateMinutes", r.getLateMinutes())
+                    .set("earlyMinutes", r.getEarlyMinutes())
+                    .set("otMinutes", r.getOtMinutes())
+                    .set("updatedAt", r.getUpdatedAt() != null ? r.getUpdatedAt() : Instant.now()));
+        }
+        ops.execute();
+    }
+
+    @Override
+    public Stream<AttendanceReportRow> streamReportRows(LocalDate from, LocalDate to, String department) {
+        List<AggregationOperation> ops = reportPrefix(from, to, department);
+        Document project = new Document("_id", 0)
+                .append("employeeId", 1)
+                .append("date", 1)
+                .append("status", new Document("$ifNull", List.of("$status", "PRESENT")))
+                .append("checkIn", 1)
+                .append("checkOut", 1)
+                .append("lateMinutes", new Document("$ifNull", List.of("$lateMinutes", 0)))
+                .append("earlyMinutes", new Document("$ifNull", List.of("$earlyMinutes", 0)))
+                .append("otMinutes", new Document("$ifNull", List.of("$otMinutes", 0)));
+        project.putAll(EmployeeLookup.nameAndDepartment());
+        ops.add(ctx -> new Document("$project", project));
+        ops.add(ctx -> new Document("$sort", new Document("department", 1).append("employeeName", 1).append("date", 1)));
+
+        // sort cả tháng có thể vượt 100MB của $sort -> cho phép spill ra đĩa
+        AggregationOptions options = AggregationOptions.builder()
+                .allowDiskUse(true)
+                .cursorBatchSize(REPORT_BATCH_SIZE)
+                .collation(EmployeeListQuery.COLLATION)
+                .build();
+        return mongo.aggregateStream(Aggregation.newAggregation(ops).withOptions(options),
+                COLLECTION, AttendanceReportRow.class);
+    }
+
+    /** $match ngày -> $lookup tên/phòng ban -> $match phòng ban (nếu có) */
+    private static List<AggregationOperation> reportPrefix(LocalDate from, LocalDate to, String department) {
+        List<AggregationOperation> ops = new ArrayList<>();
+        ops.add(Aggregation.match(Criteria.where("date").gte(from).lte(to)));
+        ops.addAll(EmployeeLookup.join(department));
+        return ops;
+    }
+}
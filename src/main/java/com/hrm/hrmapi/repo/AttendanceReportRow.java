@@ -0,0 +1,22 @@
+// src/main/java/com/hrm/hrmapi/repo/AttendanceReportRow.java
+package com.hrm.hrmapi.repo;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/** 1 dòng báo cáo chấm công đã join tên/phòng ban ở phía Mongo ($lookup) – xem AttendanceRepoImpl.streamReportRows */
+@Data
+public class AttendanceReportRow {
+    private String employeeId;
+    private String employeeName;
+    private String department;
+    private LocalDate date;
+    private String status;
+    private LocalTime checkIn;
+    private LocalTime checkOut;
+    private Integer lateMinutes;
+    private Integer earlyMinutes;
+    private Integer otMinutes;
+}
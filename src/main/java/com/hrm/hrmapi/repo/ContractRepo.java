@@ -17,6 +17,12 @@ public interface ContractRepo extends MongoRepository<Contract, String> {
             "  $or: [ {'endDate': null}, {'endDate': { $gte: ?1 }} ] }")
     List<Contract> findActiveAtAll(String employeeId, LocalDate at);
 
+    // Tất cả HĐ active tại 'at' của mọi nhân viên (payroll run nạp 1 lần)
+    @Query("{ 'status': 'ACTIVE', " +
+            "  'startDate': { $lte: ?0 }, " +
+            "  $or: [ {'endDate': null}, {'endDate': { $gte: ?0 }} ] }")
+    List<Contract> findAllActiveAt(LocalDate at);
+
     default Optional<Contract> findActiveByEmployee(String employeeId, LocalDate at) {
         return findActiveAtAll(employeeId, at).stream()
                 .max(java.util.Comparator.comparingInt(Contract::getVersion));
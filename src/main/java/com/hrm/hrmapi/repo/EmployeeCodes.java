@@ -0,0 +1,27 @@
+// src/main/java/com/hrm/hrmapi/repo/EmployeeCodes.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.Employee;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Mã nhân viên dạng chuẩn hoá (trim + lowercase) lưu ở Employee.codeNormalized, có unique index:
+ * tra cứu không phân biệt hoa thường dùng index, và trùng mã được chặn bởi chính index đó.
+ * Được tính lại trước mỗi lần save.
+ */
+@Component
+public class EmployeeCodes implements BeforeConvertCallback<Employee> {
+
+    @Override
+    public Employee onBeforeConvert(Employee e, String collection) {
+        e.setCodeNormalized(normalize(e.getCode()));
+        return e;
+    }
+
+    public static String normalize(String code) {
+        return code == null ? null : code.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,57 @@
+// src/main/java/com/hrm/hrmapi/repo/EmployeeCursor.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.Employee;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Cursor keyset cho danh sách nhân viên: field sort + chiều + giá trị sort của bản ghi cuối + _id.
+ * Trang kế tiếp lọc "sau (value, _id)" trên index {field, _id} nên sâu bao nhiêu cũng tốn như trang đầu.
+ * Client chỉ coi nextCursor là chuỗi opaque.
+ */
+public record EmployeeCursor(String field, boolean desc, Object value, String id) {
+
+    /** Field hỗ trợ keyset (đều có index {field, _id}) */
+    public static final List<String> FIELDS = List.of("fullName", "joinDate", "code", "department");
+
+    public static EmployeeCursor after(Employee last, String field, boolean desc) {
+        Object value = switch (field) {
+            case "joinDate" -> last.getJoinDate();
+            case "code" -> last.getCode();
+            case "department" -> last.getDepartment();
+            default -> last.getFullName();
+        };
+        return new EmployeeCursor(field, desc, value, last.getId());
+    }
+
+    public String encode() {
+        String v = value == null ? "n:" : (value instanceof LocalDate d ? "d:" + d : "s:" + value);
+        String raw = field + "\n" + (desc ? "d" : "a") + "\n" + id + "\n" + v;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Giải mã cursor; cursor hỏng -> IllegalArgumentException */
+    public static EmployeeCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] p = raw.split("\n", 4);
+            if (p.length != 4 || !FIELDS.contains(p[0])) throw new IllegalArgumentException("Invalid cursor");
+
+            Object value = switch (p[3].substring(0, 2)) {
+                case "n:" -> null;
+                case "d:" -> LocalDate.parse(p[3].substring(2));
+                case "s:" -> p[3].substring(2);
+                default -> throw new IllegalArgumentException("Invalid cursor");
+            };
+            return new EmployeeCursor(p[0], "d".equals(p[1]), value, p[2]);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
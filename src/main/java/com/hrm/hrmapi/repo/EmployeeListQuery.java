@@ -0,0 +1,36 @@
+// src/main/java/com/hrm/hrmapi/repo/EmployeeListQuery.java
+package com.hrm.hrmapi.repo;
+
+import org.springframework.data.mongodb.core.query.Collation;
+
+import java.util.List;
+
+/** Tham số danh sách nhân viên (filter + sort + paging), chạy hoàn toàn trên Mongo */
+public record EmployeeListQuery(
+        String q,
+        String department,
+        String status,
+        String sortField,
+        boolean desc,
+        int page,
+        int size,
+        TotalMode total
+) {
+    /** EXACT: đếm mỗi lần; CACHED: dùng số đếm gần đây (vài chục giây); NONE: không đếm, chỉ trả hasMore */
+    public enum TotalMode { EXACT, CACHED, NONE }
+
+    /** Các field được sort – mỗi field có index {field, _id} cùng collation (xem IndexSeeder); keyset dùng EmployeeCursor.FIELDS */
+    public static final List<String> SORT_FIELDS = List.of("fullName", "joinDate", "code", "department", "position", "status");
+
+    /** So sánh không phân biệt hoa thường (filter phòng ban/trạng thái + sort), dùng chung cho query và index */
+    public static final Collation COLLATION = Collation.of("vi").strength(Collation.ComparisonLevel.secondary());
+
+    /** Các cột trên màn danh sách – chỉ project những field này */
+    public static final String[] LIST_FIELDS = {"code", "fullName", "department", "position", "status", "joinDate", "phone"};
+
+    public String sortFieldOrDefault() {
+        return SORT_FIELDS.contains(sortField) ? sortField : "fullName";
+    }
+
+    public record Result<T>(List<T> items, Long total, boolean hasMore) {}
+}
@@ -0,0 +1,47 @@
+// src/main/java/com/hrm/hrmapi/repo/EmployeeLookup.java
+package com.hrm.hrmapi.repo;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Các stage aggregation join tên/phòng ban nhân viên vào document có field employeeId
+ * (dùng cho báo cáo): $lookup employees -> $unwind "emp" -> $match phòng ban (nếu có).
+ */
+public final class EmployeeLookup {
+
+    private EmployeeLookup() {}
+
+    public static List<AggregationOperation> join(String department) {
+        List<AggregationOperation> ops = new ArrayList<>();
+
+        // employeeId lưu dạng String còn _id của employees là ObjectId (id hex) hoặc String -> so cả 2 kiểu
+        ops.add(ctx -> new Document("$lookup", new Document("from", "employees")
+                .append("let", new Document("eid", "$employeeId"))
+                .append("pipeline", List.of(
+                        new Document("$match", new Document("$expr", new Document("$eq", List.of("$_id",
+                                new Document("$convert", new Document("input", "$$eid")
+                                        .append("to", "objectId")
+                                        .append("onError", "$$eid")
+                                        .append("onNull", "$$eid")))))),
+                        new Document("$project", new Document("fullName", 1).append("department", 1))))
+                .append("as", "emp")));
+        ops.add(Aggregation.unwind("emp", true));
+
+        if (department != null && !department.isBlank()) {
+            ops.add(Aggregation.match(Criteria.where("emp.department").is(department)));
+        }
+        return ops;
+    }
+
+    /** employeeName / department lấy từ "emp", thiếu thì fallback employeeId / "" */
+    public static Document nameAndDepartment() {
+        return new Document("employeeName", new Document("$ifNull", List.of("$emp.fullName", "$employeeId")))
+                .append("department", new Document("$ifNull", List.of("$emp.department", "")));
+    }
+}
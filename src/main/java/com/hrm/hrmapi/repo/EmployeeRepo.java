@@ -8,6 +8,13 @@ import java.util.*;
 
 public interface EmployeeRepo extends MongoRepository<Employee, String>, EmployeeRepoCustom {
     List<Employee> findByDepartment(String department);
+
+    Optional<Employee> findByCodeNormalized(String codeNormalized);
+
+    /** Tra mã không phân biệt hoa thường qua unique index codeNormalized */
+    default Optional<Employee> findByCodeIgnoreCase(String code) {
+        return findByCodeNormalized(EmployeeCodes.normalize(code));
+    }
     // Tuỳ model bạn định nghĩa trạng thái. Nếu có field status = "ACTIVE" thì dùng cách này:
     @Query("{ 'status': 'ACTIVE' }")
     List<Employee> findAllActive();
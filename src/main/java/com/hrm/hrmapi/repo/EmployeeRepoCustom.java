@@ -5,6 +5,29 @@ import com.hrm.hrmapi.domain.Employee;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
 public interface EmployeeRepoCustom {
     Page<Employee> search(String q, String department, String status, Pageable pageable);
+
+    /** Danh sách nhân viên: filter/sort/paging/projection trên Mongo, đếm tổng theo query.total() */
+    EmployeeListQuery.Result<Employee> list(EmployeeListQuery query);
+
+    /** Như list() nhưng phân trang keyset: lấy query.size() bản ghi sau cursor (null = trang đầu), bỏ qua query.page() */
+    EmployeeListQuery.Result<Employee> scroll(EmployeeListQuery query, EmployeeCursor after);
+
+    /** Đọc bằng cursor cho export (8 cột CSV), filter như list(); caller phải đóng stream */
+    Stream<Employee> streamForExport(String q, String department, String status);
+
+    /** Ứng viên cho tìm kiếm nhanh: nhân viên có đủ mọi token (chỉ project các cột danh sách) */
+    List<Employee> findBySearchTokens(List<String> tokens, int limit);
+
+    /** Bảng tra code (lowercase) -> id, chỉ project 2 field để nạp 1 lần cho import */
+    Map<String, String> loadCodeIndex();
+
+    /** Toàn bộ id nhân viên, chỉ project _id */
+    Set<String> findAllIds();
 }
@@ -10,39 +10,183 @@ import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 @Repository
 public class EmployeeRepoImpl implements EmployeeRepoCustom {
     @Autowired
     private MongoTemplate mongo;
 
+    // cache số đếm cho TotalMode.CACHED, key = filter
+    private static final long COUNT_TTL_MS = 30_000;
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    private record CachedCount(long value, long at) {}
+
     @Override
     public Page<Employee> search(String q, String department, String status, Pageable pageable) {
+        Criteria criteria = criteria(q, department, status);
+        Query query = new Query(criteria).with(pageable).collation(EmployeeListQuery.COLLATION);
+
+        List<Employee> items = mongo.find(query, Employee.class);
+        long total = count(criteria);
+        return new PageImpl<>(items, pageable, total);
+    }
+
+    @Override
+    public EmployeeListQuery.Result<Employee> list(EmployeeListQuery q) {
+        Criteria criteria = criteria(q.q(), q.department(), q.status());
+
+        Sort.Direction dir = q.desc() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Query query = new Query(criteria)
+                .collation(EmployeeListQuery.COLLATION)
+                .with(Sort.by(dir, q.sortFieldOrDefault(), "_id"))
+                .skip((long) q.page() * q.size())
+                .limit(q.size() + 1);                 // +1 để biết còn trang sau mà không cần count
+        query.fields().include(EmployeeListQuery.LIST_FIELDS);
+
+        List<Employee> items = mongo.find(query, Employee.class);
+        boolean hasMore = items.size() > q.size();
+        if (hasMore) items = items.subList(0, q.size());
+
+        Long total = switch (q.total()) {
+            case EXACT -> count(criteria);
+            case CACHED -> cachedCount(q, criteria);
+            case NONE -> null;
+        };
+        return new EmployeeListQuery.Result<>(items, total, hasMore);
+    }
+
+    @Override
+    public EmployeeListQuery.Result<Employee> scroll(EmployeeListQuery q, EmployeeCursor after) {
+        String field = q.sortFieldOrDefault();
+        Criteria filter = criteria(q.q(), q.department(), q.status());
+        Criteria criteria = after == null ? filter : new Criteria().andOperator(filter, keysetAfter(after));
+
+        Sort.Direction dir = q.desc() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Query query = new Query(criteria)
+                .collation(EmployeeListQuery.COLLATION)
+                .with(Sort.by(dir, field, "_id"))
+                .limit(q.size() + 1);
+        query.fields().include(EmployeeListQuery.LIST_FIELDS);
+
+        List<Employee> items = mongo.find(query, Employee.class);
+        boolean hasMore = items.size() > q.size();
+        if (hasMore) items = items.subList(0, q.size());
+
+        Long total = switch (q.total()) {
+            case EXACT -> count(filter);
+            case CACHED -> cachedCount(q, filter);
+            case NONE -> null;
+        };
+        return new EmployeeListQuery.Result<>(items, total, hasMore);
+    }
+
+    /**
+     * Điều kiện "đứng sau (value, _id)" theo thứ tự sort của Mongo (null đứng đầu khi ASC, cuối khi DESC).
+     * ASC : f > v  | (f = v & _id > id)            ; v null: (f null & _id > id) | f not null
+     * DESC: f < v  | (f = v & _id < id) | f null   ; v null: (f null & _id < id)
+     */
+    static Criteria keysetAfter(EmployeeCursor c) {
+        String f = c.field();
+        Object v = c.value();
+        if (!c.desc()) {
+            if (v == null) return new Criteria().orOperator(
+                    new Criteria().andOperator(Criteria.where(f).is(null), Criteria.where("_id").gt(c.id())),
+                    Criteria.where(f).ne(null));
+            return new Criteria().orOperator(
+                    Criteria.where(f).gt(v),
+                    new Criteria().andOperator(Criteria.where(f).is(v), Criteria.where("_id").gt(c.id())));
+        }
+        if (v == null) return new Criteria().andOperator(Criteria.where(f).is(null), Criteria.where("_id").lt(c.id()));
+        return new Criteria().orOperator(
+                Criteria.where(f).lt(v),
+                new Criteria().andOperator(Criteria.where(f).is(v), Criteria.where("_id").lt(c.id())),
+                Criteria.where(f).is(null));
+    }
+
+    private Criteria criteria(String q, String department, String status) {
         List<Criteria> and = new ArrayList<>();
 
         if (StringUtils.hasText(q)) {
-            Pattern regex = Pattern.compile(Pattern.quote(q), Pattern.CASE_INSENSITIVE);
-            and.add(new Criteria().orOperator(
-                    Criteria.where("code").regex(regex),
-                    Criteria.where("fullName").regex(regex),
-                    Criteria.where("phone").regex(regex),
-                    Criteria.where("position").regex(regex),
-                    Criteria.where("department").regex(regex)
-            ));
+            List<String> tokens = EmployeeSearchTokens.queryTokens(q);
+            if (!tokens.isEmpty()) and.add(Criteria.where("searchTokens").all(tokens));
         }
+        // so sánh không phân biệt hoa thường nhờ collation của query
         if (StringUtils.hasText(department)) {
-            and.add(Criteria.where("department").is(department));
+            and.add(Criteria.where("department").is(department.trim()));
         }
         if (StringUtils.hasText(status)) {
-            and.add(Criteria.where("status").is(status));
+            and.add(Criteria.where("status").is(status.trim()));
         }
 
-        Criteria criteria = and.isEmpty() ? new Criteria() : new Criteria().andOperator(and);
-        Query query = new Query(criteria).with(pageable);
+        return and.isEmpty() ? new Criteria() : new Criteria().andOperator(and);
+    }
 
-        List<Employee> items = mongo.find(query, Employee.class);
-        long total = mongo.count(Query.of(query).limit(-1).skip(-1), Employee.class);
-        return new PageImpl<>(items, pageable, total);
+    private long count(Criteria criteria) {
+        return mongo.count(new Query(criteria).collation(EmployeeListQuery.COLLATION), Employee.class);
+    }
+
+    private long cachedCount(EmployeeListQuery q, Criteria criteria) {
+        String key = norm(q.q()) + "|" + norm(q.department()) + "|" + norm(q.status());
+        long now = System.currentTimeMillis();
+        CachedCount hit = counts.get(key);
+        if (hit != null && now - hit.at() < COUNT_TTL_MS) return hit.value();
+
+        if (counts.size() > 1000) counts.clear();
+        long value = count(criteria);
+        counts.put(key, new CachedCount(value, now));
+        return value;
+    }
+
+    private static String norm(String s) {
+        return s == null ? "" : s.trim().toLowerCase();
+    }
+
+    @Override
+    public Stream<Employee> streamForExport(String q, String department, String status) {
+        Query query = new Query(criteria(q, department, status))
+                .collation(EmployeeListQuery.COLLATION)
+                .with(Sort.by("_id"));
+        query.fields().include("code", "fullName", "department", "position", "status", "joinDate", "phone", "address");
+        query.cursorBatchSize(1000);
+        return mongo.stream(query, Employee.class);
+    }
+
+    @Override
+    public List<Employee> findBySearchTokens(List<String> tokens, int limit) {
+        if (tokens.isEmpty()) return List.of();
+        Query query = new Query(Criteria.where("searchTokens").all(tokens))
+                .collation(EmployeeListQuery.COLLATION)
+                .limit(limit);
+        query.fields().include(EmployeeListQuery.LIST_FIELDS);
+        return mongo.find(query, Employee.class);
+    }
+
+    @Override
+    public Map<String, String> loadCodeIndex() {
+        Query query = new Query(Criteria.where("code").ne(null));
+        query.fields().include("code").include("codeNormalized");
+
+        Map<String, String> index = new HashMap<>();
+        try (var stream = mongo.stream(query, Employee.class)) {
+            stream.forEach(e -> index.putIfAbsent(
+                    e.getCodeNormalized() != null ? e.getCodeNormalized() : EmployeeCodes.normalize(e.getCode()),
+                    e.getId()));
+        }
+        return index;
+    }
+
+    @Override
+    public Set<String> findAllIds() {
+        Query query = new Query();
+        query.fields().include("_id");
+
+        Set<String> ids = new HashSet<>();
+        try (var stream = mongo.stream(query, Employee.class)) {
+            stream.forEach(e -> ids.add(e.getId()));
+        }
+        return ids;
     }
 }
@@ -0,0 +1,75 @@
+// src/main/java/com/hrm/hrmapi/repo/EmployeeSearchTokens.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.Employee;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Token tìm kiếm của nhân viên: chữ thường, bỏ dấu tiếng Việt, tách từ, lưu mọi prefix của từng từ
+ * vào Employee.searchTokens (multikey index). Tìm "ng an" = searchTokens chứa cả "ng" và "an".
+ * Token được tính lại trước mỗi lần save nên create/updateContact/updateJob/... luôn đồng bộ.
+ */
+@Component
+public class EmployeeSearchTokens implements BeforeConvertCallback<Employee> {
+
+    /** Prefix dài nhất được lưu; từ khoá dài hơn sẽ bị cắt về độ dài này khi tìm */
+    public static final int MAX_PREFIX = 20;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Override
+    public Employee onBeforeConvert(Employee e, String collection) {
+        e.setSearchTokens(tokens(e));
+        return e;
+    }
+
+    public static List<String> tokens(Employee e) {
+        Set<String> out = new LinkedHashSet<>();
+        for (String field : new String[]{e.getCode(), e.getFullName(), e.getPhone(), e.getPosition(), e.getDepartment()}) {
+            for (String w : words(field)) addPrefixes(out, w);
+        }
+        // mã NV gõ liền không dấu gạch: "nv20250001"
+        String code = fold(e.getCode()).replaceAll("[^\\p{L}\\p{N}]", "");
+        if (!code.isEmpty()) addPrefixes(out, code);
+        return new ArrayList<>(out);
+    }
+
+    /** Từ khoá tìm kiếm -> danh sách token phải khớp tất cả */
+    public static List<String> queryTokens(String q) {
+        List<String> out = new ArrayList<>();
+        for (String w : words(q)) {
+            String t = w.length() > MAX_PREFIX ? w.substring(0, MAX_PREFIX) : w;
+            if (!out.contains(t)) out.add(t);
+        }
+        return out;
+    }
+
+    public static List<String> words(String s) {
+        List<String> out = new ArrayList<>();
+        for (String w : SEPARATORS.split(fold(s))) {
+            if (!w.isEmpty()) out.add(w);
+        }
+        return out;
+    }
+
+    /** lowercase + bỏ dấu ("Nguyễn Đức" -> "nguyen duc") */
+    public static String fold(String s) {
+        if (s == null || s.isEmpty()) return "";
+        String n = Normalizer.normalize(s.toLowerCase(), Normalizer.Form.NFD);
+        return MARKS.matcher(n).replaceAll("").replace('đ', 'd');
+    }
+
+    private static void addPrefixes(Set<String> out, String w) {
+        int max = Math.min(w.length(), MAX_PREFIX);
+        for (int i = 1; i <= max; i++) out.add(w.substring(0, i));
+    }
+}
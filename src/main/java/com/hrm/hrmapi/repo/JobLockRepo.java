@@ -0,0 +1,7 @@
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.JobLock;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface JobLockRepo extends MongoRepository<JobLock, String>, JobLockRepoCustom {
+}
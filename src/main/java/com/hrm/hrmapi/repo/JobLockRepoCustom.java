@@ -0,0 +1,21 @@
+// src/main/java/com/hrm/hrmapi/repo/JobLockRepoCustom.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.JobLock;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface JobLockRepoCustom {
+    /**
+     * Giữ khoá name cho owner (atomically): chưa ai giữ, hoặc heartbeat của người giữ cũ hơn staleBefore.
+     * Trả về trạng thái trước khi giữ (done của lần chạy trước); empty nếu instance khác đang giữ.
+     */
+    Optional<JobLock> acquire(String name, String owner, Instant staleBefore);
+
+    /** Gia hạn lease; false nếu khoá không còn thuộc owner này */
+    boolean heartbeat(String name, String owner);
+
+    /** Trả khoá; done = job đã chạy xong trọn vẹn */
+    void release(String name, String owner, boolean done);
+}
@@ -0,0 +1,54 @@
+// src/main/java/com/hrm/hrmapi/repo/JobLockRepoImpl.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.JobLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public class JobLockRepoImpl implements JobLockRepoCustom {
+    @Autowired
+    private MongoTemplate mongo;
+
+    @Override
+    public Optional<JobLock> acquire(String name, String owner, Instant staleBefore) {
+        Query query = new Query(Criteria.where("_id").is(name).orOperator(
+                Criteria.where("owner").is(null),
+                Criteria.where("heartbeatAt").lt(staleBefore)));
+        Update update = new Update().set("owner", owner).set("heartbeatAt", Instant.now());
+        try {
+            // chưa có document -> upsert tạo mới (previous = null); đang bị giữ -> upsert đụng _id -> DuplicateKey
+            JobLock previous = mongo.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(false), JobLock.class);
+            return Optional.of(previous != null ? previous : JobLock.builder().id(name).build());
+        } catch (DuplicateKeyException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean heartbeat(String name, String owner) {
+        Query query = new Query(Criteria.where("_id").is(name).and("owner").is(owner));
+        return mongo.updateFirst(query, new Update().set("heartbeatAt", Instant.now()), JobLock.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public void release(String name, String owner, boolean done) {
+        Query query = new Query(Criteria.where("_id").is(name).and("owner").is(owner));
+        Update update = new Update()
+                .unset("owner")
+                .set("done", done)
+                .set("finishedAt", Instant.now());
+        mongo.updateFirst(query, update, JobLock.class);
+    }
+}
@@ -0,0 +1,20 @@
+// src/main/java/com/hrm/hrmapi/repo/LeaveReportRow.java
+package com.hrm.hrmapi.repo;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/** 1 dòng báo cáo nghỉ phép đã join tên/phòng ban ở phía Mongo – xem LeaveRequestRepoImpl.streamReportRows */
+@Data
+public class LeaveReportRow {
+    private String requestId;
+    private String employeeId;
+    private String employeeName;
+    private String department;
+    private String typeCode;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private double days;
+    private String status;
+}
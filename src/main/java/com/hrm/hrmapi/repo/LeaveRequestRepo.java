@@ -6,7 +6,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import java.time.LocalDate;
 import java.util.List;
 
-public interface LeaveRequestRepo extends MongoRepository<LeaveRequest, String> {
+public interface LeaveRequestRepo extends MongoRepository<LeaveRequest, String>, LeaveRequestRepoCustom {
     List<LeaveRequest> findByEmployeeIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
             String employeeId, LocalDate to, LocalDate from);
     List<LeaveRequest> findByStatus(String status);
@@ -14,4 +14,7 @@ public interface LeaveRequestRepo extends MongoRepository<LeaveRequest, String>
     List<LeaveRequest> findByEmployeeIdAndStatusAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
             String employeeId, String status, LocalDate end, LocalDate start
     );
+    List<LeaveRequest> findByStatusAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
+            String status, LocalDate end, LocalDate start
+    );
 }
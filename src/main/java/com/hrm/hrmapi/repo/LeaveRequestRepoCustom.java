@@ -0,0 +1,13 @@
+// src/main/java/com/hrm/hrmapi/repo/LeaveRequestRepoCustom.java
+package com.hrm.hrmapi.repo;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+public interface LeaveRequestRepoCustom {
+    /**
+     * Dòng báo cáo nghỉ phép có startDate trong [from, to] (bao gồm 2 đầu): $lookup employees,
+     * lọc phòng ban (nếu có), sort phòng ban, tên, ngày bắt đầu. Đọc bằng cursor; caller phải close stream.
+     */
+    Stream<LeaveReportRow> streamReportRows(LocalDate from, LocalDate to, String department);
+}
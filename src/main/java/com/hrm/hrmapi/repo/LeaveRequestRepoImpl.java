@@ -0,0 +1,49 @@
+// src/main/java/com/hrm/hrmapi/repo/LeaveRequestRepoImpl.java
+package com.hrm.hrmapi.repo;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public class LeaveRequestRepoImpl implements LeaveRequestRepoCustom {
+    @Autowired
+    private MongoTemplate mongo;
+
+    @Override
+    public Stream<LeaveReportRow> streamReportRows(LocalDate from, LocalDate to, String department) {
+        List<AggregationOperation> ops = new ArrayList<>();
+        ops.add(Aggregation.match(Criteria.where("startDate").gte(from).lte(to)));
+        ops.addAll(EmployeeLookup.join(department));
+
+        Document project = new Document("_id", 0)
+                .append("requestId", new Document("$toString", "$_id"))
+                .append("employeeId", 1)
+                .append("typeCode", 1)
+                .append("startDate", 1)
+                .append("endDate", 1)
+                .append("days", 1)
+                .append("status", 1);
+        project.putAll(EmployeeLookup.nameAndDepartment());
+        ops.add(ctx -> new Document("$project", project));
+        ops.add(ctx -> new Document("$sort", new Document("department", 1).append("employeeName", 1).append("startDate", 1)));
+
+        AggregationOptions options = AggregationOptions.builder()
+                .allowDiskUse(true)
+                .cursorBatchSize(1000)
+                .collation(EmployeeListQuery.COLLATION)
+                .build();
+        return mongo.aggregateStream(Aggregation.newAggregation(ops).withOptions(options),
+                "leave_requests", LeaveReportRow.class);
+    }
+}
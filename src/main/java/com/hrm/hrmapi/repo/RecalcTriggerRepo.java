@@ -0,0 +1,12 @@
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.RecalcTrigger;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RecalcTriggerRepo extends MongoRepository<RecalcTrigger, String>, RecalcTriggerRepoCustom {
+    List<RecalcTrigger> findTop50ByOrderByCreatedAtDesc();
+    long deleteByFinishedAtBefore(Instant before);
+}
@@ -0,0 +1,22 @@
+// src/main/java/com/hrm/hrmapi/repo/RecalcTriggerRepoCustom.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.RecalcTrigger;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface RecalcTriggerRepoCustom {
+    /**
+     * Nhận (atomically) trigger để chạy: QUEUED, hoặc RUNNING mà heartbeat cũ hơn staleBefore
+     * (instance chạy nó đã chết). An toàn khi nhiều instance cùng thử.
+     */
+    Optional<RecalcTrigger> claim(String id, String owner, Instant staleBefore);
+
+    /** id các trigger chờ chạy: QUEUED hoặc RUNNING đã quá lease, cũ nhất trước */
+    List<String> findResumable(Instant staleBefore);
+
+    /** Ghi tiến độ + heartbeat; false nếu trigger không còn thuộc owner này */
+    boolean progress(String id, String owner, long processed, long changed, long pending);
+}
@@ -0,0 +1,59 @@
+// src/main/java/com/hrm/hrmapi/repo/RecalcTriggerRepoImpl.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.RecalcTrigger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class RecalcTriggerRepoImpl implements RecalcTriggerRepoCustom {
+    @Autowired
+    private MongoTemplate mongo;
+
+    @Override
+    public Optional<RecalcTrigger> claim(String id, String owner, Instant staleBefore) {
+        Query query = new Query(Criteria.where("_id").is(id).andOperator(claimable(staleBefore)));
+        Instant now = Instant.now();
+        Update update = new Update()
+                .set("status", "RUNNING")
+                .set("owner", owner)
+                .set("heartbeatAt", now)
+                .set("startedAt", now);
+        return Optional.ofNullable(mongo.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), RecalcTrigger.class));
+    }
+
+    @Override
+    public List<String> findResumable(Instant staleBefore) {
+        Query query = new Query(claimable(staleBefore)).with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        query.fields().include("_id");
+        return mongo.find(query, RecalcTrigger.class).stream().map(RecalcTrigger::getId).toList();
+    }
+
+    @Override
+    public boolean progress(String id, String owner, long processed, long changed, long pending) {
+        Query query = new Query(Criteria.where("_id").is(id).and("owner").is(owner));
+        Update update = new Update()
+                .set("processed", processed)
+                .set("changed", changed)
+                .set("pending", pending)
+                .set("heartbeatAt", Instant.now());
+        return mongo.updateFirst(query, update, RecalcTrigger.class).getMatchedCount() > 0;
+    }
+
+    private static Criteria claimable(Instant staleBefore) {
+        return new Criteria().orOperator(
+                Criteria.where("status").is("QUEUED"),
+                Criteria.where("status").is("RUNNING").and("heartbeatAt").lt(staleBefore));
+    }
+}
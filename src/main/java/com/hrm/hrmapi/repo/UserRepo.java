@@ -3,7 +3,7 @@ import com.hrm.hrmapi.domain.*;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.*;
 
-public interface UserRepo extends MongoRepository<User, String> {
+public interface UserRepo extends MongoRepository<User, String>, UserRepoCustom {
     Optional<User> findByEmail(String email);
     Optional<User> findByEmployeeId(String employeeId);
     boolean existsByEmail(String email);
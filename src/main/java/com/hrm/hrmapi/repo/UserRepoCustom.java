@@ -0,0 +1,10 @@
+// src/main/java/com/hrm/hrmapi/repo/UserRepoCustom.java
+package com.hrm.hrmapi.repo;
+
+public interface UserRepoCustom {
+    /**
+     * Đổi passwordHash chỉ khi hash hiện tại vẫn là expected (rehash sau login không ghi đè
+     * mật khẩu vừa đổi song song). Chỉ $set 1 field, không đụng các field khác của User.
+     */
+    boolean replacePasswordHash(String userId, String expected, String newHash);
+}
@@ -0,0 +1,24 @@
+// src/main/java/com/hrm/hrmapi/repo/UserRepoImpl.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class UserRepoImpl implements UserRepoCustom {
+
+    @Autowired
+    private MongoTemplate mongo;
+
+    @Override
+    public boolean replacePasswordHash(String userId, String expected, String newHash) {
+        Query query = new Query(Criteria.where("_id").is(userId).and("passwordHash").is(expected));
+        return mongo.updateFirst(query, new Update().set("passwordHash", newHash), User.class)
+                .getModifiedCount() > 0;
+    }
+}
@@ -3,5 +3,5 @@ package com.hrm.hrmapi.repo;
 import com.hrm.hrmapi.domain.WorkSchedule;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface WorkScheduleRepo extends MongoRepository<WorkSchedule, String> {
+public interface WorkScheduleRepo extends MongoRepository<WorkSchedule, String>, WorkScheduleRepoCustom {
 }
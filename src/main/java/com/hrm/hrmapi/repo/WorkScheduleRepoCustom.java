@@ -0,0 +1,12 @@
+// src/main/java/com/hrm/hrmapi/repo/WorkScheduleRepoCustom.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.WorkSchedule;
+
+public interface WorkScheduleRepoCustom {
+    /**
+     * Ghi đè document s.id chỉ khi version trong DB vẫn là expectedVersion (null = document cũ chưa có version).
+     * false nếu instance khác đã ghi trước -> caller đọc lại và thử tiếp.
+     */
+    boolean replaceIfVersion(WorkSchedule s, Long expectedVersion);
+}
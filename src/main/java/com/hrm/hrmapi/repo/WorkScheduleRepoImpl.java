@@ -0,0 +1,21 @@
+// src/main/java/com/hrm/hrmapi/repo/WorkScheduleRepoImpl.java
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.WorkSchedule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class WorkScheduleRepoImpl implements WorkScheduleRepoCustom {
+    @Autowired
+    private MongoTemplate mongo;
+
+    @Override
+    public boolean replaceIfVersion(WorkSchedule s, Long expectedVersion) {
+        Query query = new Query(Criteria.where("_id").is(s.getId()).and("version").is(expectedVersion));
+        return mongo.replace(query, s).getMatchedCount() > 0;
+    }
+}
@@ -1,6 +1,11 @@
 package com.hrm.hrmapi.repo.payroll;
 
 import com.hrm.hrmapi.payroll.PayrollCycle;
+import com.hrm.hrmapi.payroll.PayrollEnums.CycleStatus;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface PayrollCycleRepo extends MongoRepository<PayrollCycle, String> {}
+import java.util.List;
+
+public interface PayrollCycleRepo extends MongoRepository<PayrollCycle, String> {
+    List<PayrollCycle> findByStatus(CycleStatus status);
+}
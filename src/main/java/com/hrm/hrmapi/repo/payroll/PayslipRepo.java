@@ -1,11 +1,21 @@
 package com.hrm.hrmapi.repo.payroll;
 
 import com.hrm.hrmapi.payroll.Payslip;
+import com.hrm.hrmapi.payroll.PayslipRow;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface PayslipRepo extends MongoRepository<Payslip, String> {
+public interface PayslipRepo extends MongoRepository<Payslip, String>, PayslipRepoCustom {
     List<Payslip> findByCycleId(String cycleId);
     List<Payslip> findByEmployeeId(String employeeId);
+
+    // phân trang + projection (không nạp items/summary)
+    Page<PayslipRow> findRowsByCycleId(String cycleId, Pageable pageable);
+
+    // đọc bằng cursor, caller phải đóng stream
+    Stream<Payslip> streamByCycleIdOrderByEmployeeIdAsc(String cycleId);
 }
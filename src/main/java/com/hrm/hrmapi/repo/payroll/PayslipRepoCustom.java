@@ -0,0 +1,13 @@
+package com.hrm.hrmapi.repo.payroll;
+
+import com.hrm.hrmapi.payroll.Payslip;
+
+import java.util.List;
+
+public interface PayslipRepoCustom {
+    /** Ghi đè (upsert) 1 payslip theo khoá cycleId + employeeId, atomic; trả về bản đã lưu */
+    Payslip upsert(Payslip payslip);
+
+    /** Ghi đè (upsert) payslip theo khoá cycleId + employeeId, 1 lệnh bulk unordered */
+    void bulkUpsert(List<Payslip> payslips);
+}
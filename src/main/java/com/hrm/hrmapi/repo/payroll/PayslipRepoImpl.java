@@ -0,0 +1,41 @@
+package com.hrm.hrmapi.repo.payroll;
+
+import com.hrm.hrmapi.payroll.Payslip;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class PayslipRepoImpl implements PayslipRepoCustom {
+    @Autowired
+    private MongoTemplate mongo;
+
+    @Override
+    public Payslip upsert(Payslip payslip) {
+        // id = null -> replace giữ nguyên _id của document cũ
+        payslip.setId(null);
+        return mongo.findAndReplace(key(payslip), payslip, FindAndReplaceOptions.options().upsert().returnNew());
+    }
+
+    @Override
+    public void bulkUpsert(List<Payslip> payslips) {
+        if (payslips.isEmpty()) return;
+
+        BulkOperations ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Payslip.class);
+        for (Payslip p : payslips) {
+            ops.replaceOne(key(p), p, FindAndReplaceOptions.options().upsert());
+        }
+        ops.execute();
+    }
+
+    private static Query key(Payslip p) {
+        return new Query(Criteria.where("cycleId").is(p.getCycleId())
+                .and("employeeId").is(p.getEmployeeId()));
+    }
+}
@@ -2,7 +2,6 @@
 package com.hrm.hrmapi.security;
 
 import com.hrm.hrmapi.domain.User;
-import com.hrm.hrmapi.repo.UserRepo;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
@@ -26,14 +25,15 @@ import java.util.List;
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwt;
-    private final UserRepo users;
+    private final PrincipalCache principals;
 
-    // Bỏ filter cho preflight và duy nhất /auth/login
+    // Bỏ filter cho preflight, /auth/login và /auth/refresh (refresh token nằm trong body)
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         if ("OPTIONS".equalsIgnoreCase(request.getMethod())) return true;   // preflight
         String uri = request.getRequestURI();
-        return "POST".equalsIgnoreCase(request.getMethod()) && "/auth/login".equals(uri);
+        return "POST".equalsIgnoreCase(request.getMethod())
+                && ("/auth/login".equals(uri) || "/auth/refresh".equals(uri));
     }
 
     @Override
@@ -54,10 +54,17 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String token = header.substring(7);
         try {
             Jws<Claims> jws = jwt.parse(token);
-            String userId = jws.getBody().getSubject();
-            String role = jws.getBody().get("role", String.class);
+            Claims claims = jws.getBody();
+            if (JwtService.isRefresh(claims)) throw new JwtException("Refresh token used as access token");
+            String userId = claims.getSubject();
+            String role = claims.get("role", String.class);
 
-            User user = users.findById(userId).orElse(null);
+            // mode claims: principal dựng từ token, không đụng DB
+            User user = jwt.claimsMode() ? jwt.principalOf(claims) : null;
+            if (user == null) {
+                var issuedAt = claims.getIssuedAt();
+                user = principals.get(userId, issuedAt != null ? issuedAt.toInstant() : null);
+            }
             if (user == null) {
                 SecurityContextHolder.clearContext();
                 response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "User not found");
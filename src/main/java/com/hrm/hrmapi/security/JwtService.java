@@ -1,28 +1,125 @@
 // security/JwtService.java
 package com.hrm.hrmapi.security;
+import com.hrm.hrmapi.domain.User;
 import io.jsonwebtoken.*; import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value; import org.springframework.stereotype.Component;
-import java.nio.charset.StandardCharsets; import java.security.Key; import java.time.Instant; import java.util.Date;
+import java.nio.charset.StandardCharsets; import java.security.Key; import java.security.MessageDigest; import java.security.NoSuchAlgorithmException;
+import java.time.Instant; import java.util.Date; import java.util.HexFormat; import java.util.Map; import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Key HMAC và JwtParser dựng 1 lần lúc khởi động (cả 2 thread-safe, dùng chung mọi request).
+ * Token đã verify được nhớ theo SHA-256 của chuỗi token tới khi hết hạn:
+ * cùng 1 bearer token gửi lại thì bỏ qua verify chữ ký + parse JSON.
+ *
+ * hrm.jwt.mode=claims: access token mang sẵn role/employeeId/email, sống ngắn (access-ttl-minutes),
+ * kèm refresh token (typ=refresh) để lấy access token mới qua /auth/refresh – đổi role có hiệu lực tối đa sau 1 access TTL.
+ * hrm.jwt.mode=user (mặc định): 1 token sống ttlMinutes, filter nạp User từ DB/PrincipalCache như cũ.
+ */
 @Component
 public class JwtService {
     @Value("${hrm.jwt.secret}") private String secret;
     @Value("${hrm.jwt.ttlMinutes}") private long ttl;
+    @Value("${hrm.jwt.verified-cache.max-size:10000}") private int verifiedMaxSize;
+    @Value("${hrm.jwt.mode:user}") private String mode;
+    @Value("${hrm.jwt.access-ttl-minutes:15}") private long accessTtl;
+    @Value("${hrm.jwt.refresh-ttl-days:7}") private long refreshTtlDays;
 
-    private Key key() { return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)); }
+    public static final String TYPE_ACCESS = "access";
+    public static final String TYPE_REFRESH = "refresh";
 
-    public String issue(String userId, String role) {
+    private Key key;
+    private JwtParser parser;
+
+    private record Verified(Jws<Claims> jws, Instant expiresAt) {}
+
+    private final Map<String, Verified> verified = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+    }
+
+    public boolean claimsMode() { return "claims".equalsIgnoreCase(mode); }
+
+    /** Thời gian sống (giây) của access token theo mode hiện tại */
+    public long accessTtlSeconds() { return (claimsMode() ? accessTtl : ttl) * 60; }
+
+    public String issue(User u) {
+        Instant now = Instant.now();
+        JwtBuilder b = Jwts.builder()
+                .setSubject(u.getId())
+                .claim("typ", TYPE_ACCESS)
+                .claim("role", u.getRole().name())
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plusSeconds(accessTtlSeconds())));
+        if (claimsMode()) {
+            b.claim("email", u.getEmail());
+            if (u.getEmployeeId() != null) b.claim("employeeId", u.getEmployeeId());
+        }
+        return b.signWith(key, SignatureAlgorithm.HS256).compact();
+    }
+
+    public String issueRefresh(User u) {
         Instant now = Instant.now();
         return Jwts.builder()
-                .setSubject(userId)
-                .claim("role", role)
+                .setSubject(u.getId())
+                .claim("typ", TYPE_REFRESH)
                 .setIssuedAt(Date.from(now))
-                .setExpiration(Date.from(now.plusSeconds(ttl * 60)))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .setExpiration(Date.from(now.plusSeconds(refreshTtlDays * 86400)))
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /** Token cũ không có typ được coi là access token */
+    public static boolean isRefresh(Claims c) {
+        return TYPE_REFRESH.equals(c.get("typ", String.class));
+    }
+
+    /**
+     * Principal nhẹ dựng từ claims (không đụng DB): chỉ có id/role/employeeId/email.
+     * null nếu token không mang đủ claims (cấp trước khi bật mode claims) -> caller nạp User như thường.
+     */
+    public User principalOf(Claims c) {
+        String email = c.get("email", String.class);
+        String role = c.get("role", String.class);
+        if (email == null || role == null) return null;
+        return User.builder()
+                .id(c.getSubject())
+                .email(email)
+                .role(User.Role.valueOf(role))
+                .employeeId(c.get("employeeId", String.class))
+                .build();
+    }
+
     public Jws<Claims> parse(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(token);
+        String hash = sha256(token);
+        Instant now = Instant.now();
+        Verified v = verified.get(hash);
+        if (v != null) {
+            if (v.expiresAt().isAfter(now)) return v.jws();
+            verified.remove(hash, v);
+        }
+
+        Jws<Claims> jws = parser.parseClaimsJws(token);
+        Date exp = jws.getBody().getExpiration();
+        if (exp != null) {
+            if (verified.size() >= verifiedMaxSize) {
+                verified.values().removeIf(x -> !x.expiresAt().isAfter(now));
+            }
+            // vẫn đầy (toàn token còn hạn) -> không nhớ thêm, lần sau verify lại như thường
+            if (verified.size() < verifiedMaxSize) verified.put(hash, new Verified(jws, exp.toInstant()));
+        }
+        return jws;
+    }
+
+    private static String sha256(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
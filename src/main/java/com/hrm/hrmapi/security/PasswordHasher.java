@@ -0,0 +1,156 @@
+// src/main/java/com/hrm/hrmapi/security/PasswordHasher.java
+package com.hrm.hrmapi.security;
+
+import com.hrm.hrmapi.error.ServiceOverloadedException;
+import com.hrm.hrmapi.repo.UserRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Băm / kiểm tra mật khẩu BCrypt trên pool riêng, giới hạn số luồng và độ dài hàng đợi.
+ * Request thread chỉ chờ kết quả: giờ cao điểm login không chiếm hết thread Tomcat cho việc tốn CPU;
+ * hàng đợi đầy thì trả 503 + Retry-After thay vì để request xếp hàng vô hạn.
+ * Băm lại hash cost cũ (rehashIfNeeded) chạy trên 1 thread nền riêng, ưu tiên thấp, hàng đợi nhỏ:
+ * không bao giờ chiếm chỗ của login trong pool chính.
+ * Metric: hrm.auth.password.hash{op=matches|encode|rehash} (p50/p95/p99), hrm.auth.password.rejected,
+ * hrm.auth.password.queue, hrm.auth.password.rehash.skipped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PasswordHasher {
+
+    private final PasswordEncoder encoder;
+    private final UserRepo users;
+    private final PrincipalCache principalCache;
+    private final MeterRegistry meters;
+
+    @Value("${hrm.auth.password.threads:0}")
+    private int threads;                 // 0 = số core
+
+    @Value("${hrm.auth.password.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${hrm.auth.password.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    @Value("${hrm.auth.password.rehash-queue-capacity:16}")
+    private int rehashQueueCapacity;
+
+    private ThreadPoolExecutor pool;
+    private ThreadPoolExecutor rehashPool;
+    private Timer matchTimer, encodeTimer, rehashTimer;
+    private Counter rejected, rehashSkipped;
+
+    @PostConstruct
+    public void init() {
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        var seq = new AtomicInteger();
+        pool = new ThreadPoolExecutor(n, n, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "password-hash-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        // 1 thread, MIN_PRIORITY: rehash là việc tối ưu dần, chạy khi CPU rảnh
+        rehashPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(rehashQueueCapacity), r -> {
+            Thread t = new Thread(r, "password-rehash");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        matchTimer = timer("matches");
+        encodeTimer = timer("encode");
+        rehashTimer = timer("rehash");
+        rejected = meters.counter("hrm.auth.password.rejected");
+        rehashSkipped = meters.counter("hrm.auth.password.rehash.skipped");
+        Gauge.builder("hrm.auth.password.queue", pool, p -> p.getQueue().size()).register(meters);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+        rehashPool.shutdownNow();
+    }
+
+    public boolean matches(String raw, String hash) {
+        if (raw == null || hash == null) return false;
+        return await(submit(() -> matchTimer.record(() -> encoder.matches(raw, hash))));
+    }
+
+    public String encode(String raw) {
+        return await(submit(() -> encodeTimer.record(() -> encoder.encode(raw))));
+    }
+
+    /**
+     * Hash lưu bằng cost cũ (thấp hơn cost đã tune lúc khởi động) -> băm lại nền sau khi login đúng.
+     * Best effort: hàng đợi rehash đầy thì bỏ qua, lần login sau thử lại.
+     */
+    public void rehashIfNeeded(String userId, String raw, String hash) {
+        if (!encoder.upgradeEncoding(hash)) return;
+        try {
+            rehashPool.execute(() -> {
+                String newHash = rehashTimer.record(() -> encoder.encode(raw));
+                if (users.replacePasswordHash(userId, hash, newHash)) {
+                    principalCache.invalidate(userId);
+                    log.debug("Rehashed password of user {} with current BCrypt cost", userId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // không đáng để trả lỗi cho login đã thành công
+            rehashSkipped.increment();
+        }
+    }
+
+    // ---------------------------------------------------------
+    // internals
+    // ---------------------------------------------------------
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Too many concurrent password checks, retry later", retryAfterSeconds);
+        }
+    }
+
+    private static <T> T await(Future<T> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Timer timer(String op) {
+        return Timer.builder("hrm.auth.password.hash")
+                .tag("op", op)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meters);
+    }
+}
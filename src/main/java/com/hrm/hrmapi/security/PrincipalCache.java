@@ -0,0 +1,125 @@
+// src/main/java/com/hrm/hrmapi/security/PrincipalCache.java
+package com.hrm.hrmapi.security;
+
+import com.hrm.hrmapi.domain.User;
+import com.hrm.hrmapi.repo.UserRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache User theo id cho JwtAuthFilter – tránh 1 lần findById mỗi request.
+ * Entry hết hạn sau ttl; entry nạp trước iat của token cũng bị nạp lại (vừa login / cấp token mới -> đọc bản mới).
+ * Các endpoint sửa user gọi invalidate(id) ngay sau khi save.
+ * Mỗi request nhận 1 bản copy: controller sửa principal rồi save không làm bẩn entry dùng chung.
+ * Metric: hrm.auth.principal.cache{result=hit|miss|eviction}, hrm.auth.principal.cache.size (/actuator/metrics).
+ */
+@Component
+@RequiredArgsConstructor
+public class PrincipalCache {
+
+    private final UserRepo users;
+    private final MeterRegistry meters;
+
+    @Value("${hrm.jwt.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${hrm.jwt.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    private record Entry(User user, Instant loadedAt) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // tăng mỗi lần invalidate; bản nạp bắt đầu trước đó không được put lại (tránh ghi đè bằng dữ liệu cũ)
+    private final AtomicLong generation = new AtomicLong();
+
+    private Counter hits, misses, evictions;
+
+    @PostConstruct
+    void init() {
+        hits = meters.counter("hrm.auth.principal.cache", "result", "hit");
+        misses = meters.counter("hrm.auth.principal.cache", "result", "miss");
+        evictions = meters.counter("hrm.auth.principal.cache", "result", "eviction");
+        Gauge.builder("hrm.auth.principal.cache.size", entries, Map::size).register(meters);
+    }
+
+    /** User của token; null nếu user không còn tồn tại */
+    public User get(String userId, Instant issuedAt) {
+        Instant now = Instant.now();
+        Entry e = entries.get(userId);
+        if (e != null && fresh(e, now) && (issuedAt == null || !e.loadedAt().isBefore(issuedAt))) {
+            hits.increment();
+            return copy(e.user());
+        }
+
+        misses.increment();
+        long gen = generation.get();
+        User user = users.findById(userId).orElse(null);
+        if (user == null) {
+            entries.remove(userId);
+            return null;
+        }
+        if (gen == generation.get()) {
+            if (!entries.containsKey(userId) && entries.size() >= maxSize) evict(now);
+            entries.put(userId, new Entry(user, now));
+        }
+        return copy(user);
+    }
+
+    /**
+     * Bản User đầy đủ của principal. Mode claims: principal chỉ có id/role/employeeId/email
+     * -> nạp qua cache cho các endpoint cần fullName/avatar/passwordHash hoặc save lại User.
+     */
+    public User full(User principal) {
+        if (principal.getPasswordHash() != null) return principal;
+        User u = get(principal.getId(), null);
+        if (u == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found");
+        return u;
+    }
+
+    public void invalidate(String userId) {
+        if (userId == null) return;
+        generation.incrementAndGet();
+        entries.remove(userId);
+    }
+
+    // ---------------------------------------------------------
+    // internals
+    // ---------------------------------------------------------
+
+    private boolean fresh(Entry e, Instant now) {
+        return e.loadedAt().plusSeconds(ttlSeconds).isAfter(now);
+    }
+
+    /** Đầy: bỏ entry hết hạn; vẫn đầy thì bỏ entry nạp lâu nhất */
+    private void evict(Instant now) {
+        entries.entrySet().removeIf(x -> {
+            if (fresh(x.getValue(), now)) return false;
+            evictions.increment();
+            return true;
+        });
+        if (entries.size() < maxSize) return;
+
+        entries.entrySet().stream()
+                .min(Map.Entry.comparingByValue((a, b) -> a.loadedAt().compareTo(b.loadedAt())))
+                .ifPresent(x -> {
+                    if (entries.remove(x.getKey(), x.getValue())) evictions.increment();
+                });
+    }
+
+    private static User copy(User u) {
+        return u.toBuilder().build();
+    }
+}
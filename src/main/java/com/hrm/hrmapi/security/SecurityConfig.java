@@ -2,6 +2,8 @@
 package com.hrm.hrmapi.security;
 
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -20,6 +22,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.List;
 
+@Slf4j
 @Configuration
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
@@ -46,7 +49,7 @@ public class SecurityConfig {
                         ).permitAll()
 
                         // Public auth endpoints (để bạn test swagger/forgot/reset nếu cần)
-                        .requestMatchers(HttpMethod.POST, "/auth/login").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/auth/login", "/auth/refresh").permitAll()
                         .requestMatchers(HttpMethod.POST, "/auth/forgot", "/auth/reset-password").permitAll()
 
                         // Static uploads (nếu FE cần tải ảnh avatar,…)
@@ -77,7 +80,7 @@ public class SecurityConfig {
         ));
         cfg.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         cfg.setAllowedHeaders(List.of("*"));
-        cfg.setExposedHeaders(List.of("Authorization", "Content-Type"));
+        cfg.setExposedHeaders(List.of("Authorization", "Content-Type", "ETag", "X-Schedule-Version"));
         cfg.setAllowCredentials(false); // dùng Bearer, không dùng cookie
         cfg.setMaxAge(3600L);
 
@@ -91,8 +94,28 @@ public class SecurityConfig {
         return ac.getAuthenticationManager();
     }
 
+    /**
+     * Cost BCrypt tune lúc khởi động: tăng dần từ min-strength tới khi 1 lần băm gần target-hash-ms
+     * (mỗi +1 cost ~ gấp đôi thời gian). target-hash-ms = 0 -> dùng min-strength.
+     * Hash cũ có cost thấp hơn được băm lại khi user login (PasswordHasher.rehashIfNeeded).
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${hrm.auth.password.target-hash-ms:250}") long targetMs,
+                                           @Value("${hrm.auth.password.min-strength:10}") int minStrength,
+                                           @Value("${hrm.auth.password.max-strength:14}") int maxStrength) {
+        int strength = minStrength;
+        if (targetMs > 0) {
+            var probe = new BCryptPasswordEncoder(minStrength);
+            probe.encode("warm-up");
+            long started = System.nanoTime();
+            probe.encode("calibrate");
+            long ms = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+            while (strength < maxStrength && ms * 2 <= targetMs) {
+                strength++;
+                ms *= 2;
+            }
+            log.info("BCrypt strength {} (~{} ms per hash, target {} ms)", strength, ms, targetMs);
+        }
+        return new BCryptPasswordEncoder(strength);
     }
 }
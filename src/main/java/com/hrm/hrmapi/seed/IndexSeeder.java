@@ -0,0 +1,220 @@
+// src/main/java/com/hrm/hrmapi/seed/IndexSeeder.java
+package com.hrm.hrmapi.seed;
+
+import com.hrm.hrmapi.domain.AttendanceMonthly;
+import com.hrm.hrmapi.domain.AttendanceRecord;
+import com.hrm.hrmapi.domain.Employee;
+import com.hrm.hrmapi.payroll.Payslip;
+import com.hrm.hrmapi.repo.EmployeeCodes;
+import com.hrm.hrmapi.repo.EmployeeListQuery;
+import com.hrm.hrmapi.repo.EmployeeSearchTokens;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Tạo các index mà code dựa vào (auto-index-creation đang tắt).
+ * Index unique trên dữ liệu cũ có thể trùng khoá: chỉ dọn bản nháp (có backup), còn lại dừng khởi động để xử lý tay.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexSeeder implements CommandLineRunner {
+
+    private static final String PAYSLIPS = "payslips";
+    private static final String PAYSLIP_BACKUP = "payslips_duplicates";
+    private static final String DRAFT_STATUS = "CALCULATED";
+
+    private final MongoTemplate mongo;
+
+    @Override
+    public void run(String... args) {
+        payslipCycleEmployee();
+        employeeListSorts();
+        employeeSearchTokens();
+        employeeCodeNormalized();
+        attendanceDate();
+        attendanceMonthly();
+    }
+
+    /** attendance_monthly: đọc theo tháng (báo cáo, payroll cả công ty) */
+    private void attendanceMonthly() {
+        mongo.indexOps(AttendanceMonthly.class).createIndex(new Index()
+                .on("month", Sort.Direction.ASC)
+                .on("employeeId", Sort.Direction.ASC)
+                .unique()
+                .named("month_employee"));
+    }
+
+    /** attendance_records: quét theo khoảng ngày cho cả công ty (báo cáo tháng, recalc) – emp_date bắt đầu bằng employeeId nên không dùng được */
+    private void attendanceDate() {
+        mongo.indexOps(AttendanceRecord.class).createIndex(new Index()
+                .on("date", Sort.Direction.ASC)
+                .named("date"));
+    }
+
+    /** employees: điền codeNormalized cho bản ghi cũ rồi tạo unique index (dữ liệu cũ trùng mã -> dừng khởi động, liệt kê mã trùng) */
+    private void employeeCodeNormalized() {
+        Query query = new Query(Criteria.where("codeNormalized").exists(false).and("code").ne(null));
+        query.fields().include("code");
+
+        int n = 0;
+        BulkOperations ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+        try (var stream = mongo.stream(query, Employee.class)) {
+            for (var it = stream.iterator(); it.hasNext(); ) {
+                var e = it.next();
+                ops.updateOne(new Query(Criteria.where("_id").is(e.getId())),
+                        new Update().set("codeNormalized", EmployeeCodes.normalize(e.getCode())));
+                if (++n % 1000 == 0) {
+                    ops.execute();
+                    ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+                }
+            }
+        }
+        if (n % 1000 != 0) ops.execute();
+        if (n > 0) log.info("Backfilled codeNormalized for {} employee(s)", n);
+
+        try {
+            mongo.indexOps(Employee.class).createIndex(new Index()
+                    .on("codeNormalized", Sort.Direction.ASC)
+                    .unique()
+                    .sparse()
+                    .named("code_normalized"));
+        } catch (DataAccessException e) {
+            // index này là chỗ duy nhất chặn trùng mã (create/import không check trước) -> không chạy tiếp khi thiếu
+            List<AggregationOperation> pipeline = List.of(
+                    ctx -> new Document("$match", new Document("codeNormalized", new Document("$ne", null))),
+                    ctx -> new Document("$group", new Document("_id", "$codeNormalized")
+                            .append("n", new Document("$sum", 1))
+                            .append("codes", new Document("$addToSet", "$code"))),
+                    ctx -> new Document("$match", new Document("n", new Document("$gt", 1))),
+                    ctx -> new Document("$limit", 50));
+            List<String> clashes = mongo.aggregate(Aggregation.newAggregation(pipeline), "employees", Document.class)
+                    .getMappedResults().stream()
+                    .map(d -> d.getList("codes", String.class).toString())
+                    .toList();
+            throw new IllegalStateException("Cannot create unique index employees.code_normalized: employees share a code "
+                    + "(case-insensitive, trimmed). Fix these codes and restart: " + String.join(", ", clashes), e);
+        }
+    }
+
+    /** employees: multikey index trên searchTokens + điền token cho các bản ghi cũ chưa có */
+    private void employeeSearchTokens() {
+        // cùng collation với query danh sách để list(search=...) dùng được index
+        mongo.indexOps(Employee.class).createIndex(new Index()
+                .on("searchTokens", Sort.Direction.ASC)
+                .collation(EmployeeListQuery.COLLATION)
+                .named("search_tokens"));
+
+        Query query = new Query(Criteria.where("searchTokens").exists(false));
+        query.fields().include("code").include("fullName").include("phone").include("position").include("department");
+
+        int n = 0;
+        BulkOperations ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+        try (var stream = mongo.stream(query, Employee.class)) {
+            for (var it = stream.iterator(); it.hasNext(); ) {
+                var e = it.next();
+                ops.updateOne(new Query(Criteria.where("_id").is(e.getId())),
+                        new Update().set("searchTokens", EmployeeSearchTokens.tokens(e)));
+                if (++n % 1000 == 0) {
+                    ops.execute();
+                    ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+                }
+            }
+        }
+        if (n % 1000 != 0) ops.execute();
+        if (n > 0) log.info("Backfilled search tokens for {} employee(s)", n);
+    }
+
+    /** employees: {sortField, _id} cho từng field sort của màn danh sách, cùng collation với query */
+    private void employeeListSorts() {
+        var ops = mongo.indexOps(Employee.class);
+        for (String f : EmployeeListQuery.SORT_FIELDS) {
+            ops.createIndex(new Index()
+                    .on(f, Sort.Direction.ASC)
+                    .on("_id", Sort.Direction.ASC)
+                    .collation(EmployeeListQuery.COLLATION)
+                    .named("list_" + f));
+        }
+    }
+
+    /**
+     * payslips: unique (cycleId, employeeId). Dữ liệu cũ trùng khoá:
+     * - mỗi khoá có tối đa 1 bản đã duyệt/trả (status khác CALCULATED) -> giữ bản đó (hoặc bản CALCULATED mới nhất),
+     *   các bản CALCULATED còn lại được chép sang payslips_duplicates rồi mới xoá;
+     * - khoá có từ 2 bản đã duyệt/trả trở lên -> không đụng gì, dừng khởi động và liệt kê khoá để xử lý tay.
+     */
+    private void payslipCycleEmployee() {
+        var ops = mongo.indexOps(Payslip.class);
+        boolean exists = ops.getIndexInfo().stream().anyMatch(i -> "cycle_employee".equals(i.getName()));
+        if (exists) return;
+
+        List<AggregationOperation> pipeline = List.of(
+                ctx -> new Document("$group", new Document("_id",
+                        new Document("cycleId", "$cycleId").append("employeeId", "$employeeId"))
+                        .append("n", new Document("$sum", 1))
+                        .append("docs", new Document("$push", new Document("id", "$_id")
+                                .append("status", "$status")
+                                .append("generatedAt", "$generatedAt")))),
+                ctx -> new Document("$match", new Document("n", new Document("$gt", 1))));
+        var groups = mongo.aggregate(Aggregation.newAggregation(pipeline)
+                        .withOptions(AggregationOptions.builder().allowDiskUse(true).build()),
+                PAYSLIPS, Document.class).getMappedResults();
+
+        List<String> conflicts = new ArrayList<>();
+        List<Object> drafts = new ArrayList<>();
+        for (Document g : groups) {
+            List<Document> docs = new ArrayList<>(g.getList("docs", Document.class));
+            List<Document> settled = docs.stream().filter(d -> !DRAFT_STATUS.equals(d.getString("status"))).toList();
+            if (settled.size() > 1) {
+                conflicts.add(g.get("_id", Document.class).toJson());
+                continue;
+            }
+            docs.sort(Comparator.comparing((Document d) -> d.getDate("generatedAt"), Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(d -> String.valueOf(d.get("id"))));
+            Document keep = settled.isEmpty() ? docs.get(docs.size() - 1) : settled.get(0);
+            for (Document d : docs) {
+                if (d != keep) drafts.add(d.get("id"));
+            }
+        }
+
+        if (!conflicts.isEmpty()) {
+            throw new IllegalStateException("Cannot create unique index payslips.cycle_employee: " + conflicts.size()
+                    + " (cycleId, employeeId) key(s) have more than one non-" + DRAFT_STATUS + " payslip. "
+                    + "Resolve them manually and restart: " + String.join(", ", conflicts));
+        }
+
+        if (!drafts.isEmpty()) {
+            // chép nguyên document sang collection backup trước khi xoá
+            Query dup = new Query(Criteria.where("_id").in(drafts));
+            List<Document> backup = mongo.find(dup, Document.class, PAYSLIPS);
+            mongo.insert(backup, PAYSLIP_BACKUP);
+            mongo.remove(dup, PAYSLIPS);
+            log.warn("Moved {} duplicate {} payslip(s) to '{}' before creating cycle_employee index",
+                    backup.size(), DRAFT_STATUS, PAYSLIP_BACKUP);
+        }
+
+        ops.createIndex(new Index()
+                .on("cycleId", Sort.Direction.ASC)
+                .on("employeeId", Sort.Direction.ASC)
+                .unique()
+                .named("cycle_employee"));
+    }
+}
@@ -13,14 +13,30 @@ public class LeaveTypeSeeder implements CommandLineRunner {
     private final LeaveTypeRepo typeRepo;
 
     @Override public void run(String... args) {
-        upsert("AL", "Annual Leave", true);
-        upsert("SL", "Sick Leave", true);
-        upsert("UL", "Unpaid Leave", false);
+        migratePaidFlag();
+        upsert("AL", "Annual Leave", true, true);
+        upsert("SL", "Sick Leave", true, true);
+        upsert("UL", "Unpaid Leave", false, false);
     }
 
-    private void upsert(String code, String name, boolean deductQuota) {
+    private void upsert(String code, String name, boolean deductQuota, boolean paid) {
         typeRepo.findByCodeIgnoreCase(code).orElseGet(() ->
                 typeRepo.save(LeaveType.builder()
-                        .code(code).name(name).deductQuota(deductQuota).build()));
+                        .code(code).name(name).deductQuota(deductQuota).paid(paid).build()));
+    }
+
+    /** Loại nghỉ cũ chưa có cờ paid: suy ra 1 lần theo code/name ("unpaid", "không lương") */
+    private void migratePaidFlag() {
+        var pending = typeRepo.findAll().stream().filter(t -> t.getPaid() == null).toList();
+        for (var t : pending) {
+            t.setPaid(!looksUnpaid(t.getCode()) && !looksUnpaid(t.getName()));
+        }
+        if (!pending.isEmpty()) typeRepo.saveAll(pending);
+    }
+
+    private static boolean looksUnpaid(String s) {
+        if (s == null) return false;
+        String x = s.toLowerCase();
+        return x.contains("unpaid") || x.contains("không lương") || x.contains("khong luong");
     }
 }
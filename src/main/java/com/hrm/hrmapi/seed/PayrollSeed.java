@@ -57,6 +57,7 @@ public class PayrollSeed implements CommandLineRunner {
                 .expr(expr)
                 .priority(priority)
                 .active(true)
+                .version(1L)
                 .build());
     }
 }
@@ -0,0 +1,244 @@
+// src/main/java/com/hrm/hrmapi/service/AttendanceImportJobService.java
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.config.InstanceId;
+import com.hrm.hrmapi.domain.AttendanceBatch;
+import com.hrm.hrmapi.error.LeaseLostException;
+import com.hrm.hrmapi.repo.AttendanceBatchRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Import bảng công bất đồng bộ: nhận file -> ghi ra spool -> tạo batch QUEUED -> trả về ngay.
+ * Worker pool cố định poll batch từ collection attendance_batches (claim atomically, owner + heartbeat lastProgressAt).
+ * Spool là file trên đĩa LOCAL của instance nhận upload (spoolHost): chỉ instance trên cùng host chạy/chạy lại được batch;
+ * host đó mất đĩa thì batch nằm QUEUED tới khi upload lại.
+ * Batch bị ngắt do tắt app trở về QUEUED (giữ spool); batch RUNNING mà owner ngừng heartbeat quá lease
+ * được sweep định kỳ trả về QUEUED và instance cùng host nhận lại.
+ * Mọi lần ghi của worker đều kèm điều kiện owner: mất lease giữa chừng thì dừng, không ghi đè instance mới.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttendanceImportJobService {
+
+    private final AttendanceBatchRepo batchRepo;
+    private final AttendanceService attendanceService;
+    private final InstanceId instanceId;
+
+    @Value("${hrm.attendance.import.workers:2}")
+    private int workers;
+
+    @Value("${hrm.attendance.import.spool-dir:spool/attendance}")
+    private String spoolDir;
+
+    // RUNNING mà lastProgressAt cũ hơn lease -> owner đã chết
+    @Value("${hrm.jobs.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(Paths.get(spoolDir));
+        } catch (Exception e) {
+            throw new RuntimeException("Could not create spool folder: " + Paths.get(spoolDir).toAbsolutePath(), e);
+        }
+        var seq = new AtomicInteger();
+        // queue chỉ giữ tối đa `workers` lệnh drain; lệnh thừa bị bỏ vì worker đang chạy sẽ tự poll tiếp
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers),
+                r -> {
+                    Thread t = new Thread(r, "attendance-import-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Khởi động: chạy các batch QUEUED và RUNNING quá lease có spool trên host này */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeQueued() {
+        dispatch();
+    }
+
+    /** Định kỳ: batch RUNNING quá lease (owner chết / treo) -> QUEUED, rồi poll lại hàng đợi của host này */
+    @Scheduled(fixedDelayString = "${hrm.jobs.sweep-ms:60000}")
+    public void sweepExpiredLeases() {
+        long released = batchRepo.releaseExpired(Instant.now().minusSeconds(leaseSeconds));
+        if (released > 0) log.info("Released {} attendance import batch(es) with expired lease", released);
+        dispatch();
+    }
+
+    /** Nhận upload, ghi ra spool file và tạo batch QUEUED; worker sẽ xử lý sau */
+    public AttendanceBatch enqueue(MultipartFile file, YearMonth ym, String importedBy) {
+        Path spool = Paths.get(spoolDir).resolve(UUID.randomUUID() + ".csv").toAbsolutePath();
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, spool);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to spool import file", e);
+        }
+
+        var batch = AttendanceBatch.builder()
+                .month(ym.toString())
+                .filename(file.getOriginalFilename())
+                .importedBy(importedBy)
+                .importedAt(Instant.now())
+                .status("QUEUED")
+                .spoolPath(spool.toString())
+                .spoolHost(instanceId.host())
+                .expectedRows(countDataRows(spool))
+                .totalRows(0).success(0).failed(0)
+                .errors(new ArrayList<>())
+                .build();
+        batch = batchRepo.save(batch);
+
+        dispatch();
+        return batch;
+    }
+
+    /** Tiến độ của 1 batch: số dòng đã xử lý, success/failed, tốc độ và ETA */
+    public Map<String, Object> progress(AttendanceBatch b) {
+        int processed = b.getTotalRows() == null ? 0 : b.getTotalRows();
+        Integer expected = b.getExpectedRows();
+
+        Double rate = b.getRowsPerSecond();
+        if ("RUNNING".equals(b.getStatus()) && b.getStartedAt() != null) {
+            long ms = Math.max(Duration.between(b.getStartedAt(), Instant.now()).toMillis(), 1);
+            rate = processed * 1000d / ms;
+        }
+
+        Long etaSeconds = null;
+        if ("DONE".equals(b.getStatus()) || "FAILED".equals(b.getStatus())) {
+            etaSeconds = 0L;
+        } else if (expected != null && rate != null && rate > 0) {
+            etaSeconds = (long) Math.ceil(Math.max(expected - processed, 0) / rate);
+        }
+
+        var res = new LinkedHashMap<String, Object>();
+        res.put("batchId", b.getId());
+        res.put("status", b.getStatus());
+        res.put("month", b.getMonth());
+        res.put("filename", b.getFilename());
+        res.put("expectedRows", expected);
+        res.put("processedRows", processed);
+        res.put("success", b.getSuccess());
+        res.put("failed", b.getFailed());
+        res.put("rowsPerSecond", rate);
+        res.put("etaSeconds", etaSeconds);
+        res.put("startedAt", b.getStartedAt());
+        res.put("finishedAt", b.getFinishedAt());
+        res.put("errors", b.getErrors());
+        return res;
+    }
+
+    // ---------------------------------------------------------
+    // worker
+    // ---------------------------------------------------------
+
+    private void dispatch() {
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted() && !executor.isShutdown()) {
+            var next = batchRepo.claimNext(instanceId.get(), instanceId.host(),
+                    Instant.now().minusSeconds(leaseSeconds));
+            if (next.isEmpty()) return;
+            run(next.get());
+        }
+    }
+
+    private void run(AttendanceBatch batch) {
+        Path spool = Paths.get(batch.getSpoolPath());
+        String owner = batch.getOwner();
+
+        // chạy lại từ đầu (upsert theo emp_date nên idempotent)
+        batch.setTotalRows(0);
+        batch.setSuccess(0);
+        batch.setFailed(0);
+        batch.setErrors(new ArrayList<>());
+
+        try (InputStream in = Files.newInputStream(spool)) {
+            batch = attendanceService.runImport(batch, in);
+        } catch (LeaseLostException e) {
+            // instance khác đã nhận lại batch (và spool): bỏ hết, không ghi gì thêm
+            log.warn("Attendance import batch {} lost its lease, abandoned", batch.getId());
+            return;
+        } catch (Exception e) {
+            if (executor.isShutdown()) {
+                Thread.interrupted();   // để save bên dưới không bị driver huỷ
+                batch.setStatus("QUEUED");
+                batch.setOwner(null);
+            } else {
+                log.warn("Attendance import batch {} failed", batch.getId(), e);
+                batch.getErrors().add("FATAL: " + e.getMessage());
+                batch.setStatus("FAILED");
+                batch.setFinishedAt(Instant.now());
+            }
+            if (!batchRepo.saveIfOwner(batch, owner)) {
+                log.warn("Attendance import batch {} lost its lease, abandoned", batch.getId());
+                return;
+            }
+        }
+
+        // chưa xong (bị ngắt) -> giữ spool để chạy lại
+        if ("QUEUED".equals(batch.getStatus())) {
+            log.info("Attendance import batch {} interrupted, requeued", batch.getId());
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(spool);
+            batch.setSpoolPath(null);
+            batchRepo.saveIfOwner(batch, owner);
+        } catch (Exception e) {
+            log.warn("Could not delete spool file {}", spool, e);
+        }
+    }
+
+    private static int countDataRows(Path csv) {
+        int rows = 0;
+        try (BufferedReader br = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line = br.readLine();
+            if (line == null) return 0;
+            if (!line.toLowerCase().contains("employeecode")) rows++; // header
+            while (br.readLine() != null) rows++;
+        } catch (Exception ignored) {}
+        return rows;
+    }
+}
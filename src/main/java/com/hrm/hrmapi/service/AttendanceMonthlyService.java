@@ -0,0 +1,256 @@
+// src/main/java/com/hrm/hrmapi/service/AttendanceMonthlyService.java
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.config.InstanceId;
+import com.hrm.hrmapi.domain.AttendanceMonthly;
+import com.hrm.hrmapi.domain.AttendanceRecord;
+import com.hrm.hrmapi.repo.AttendanceMonthlyRepo;
+import com.hrm.hrmapi.repo.AttendanceRepo;
+import com.hrm.hrmapi.repo.JobLockRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Duy trì attendance_monthly (tổng chấm công theo nhân viên + tháng).
+ * Mỗi lần ghi record, các key (nhân viên, tháng) bị chạm được tính lại từ record gốc của key đó
+ * (~31 record/key) thay vì cộng trừ delta – không lệch khi lịch nghỉ lễ đổi giữa 2 lần ghi.
+ * Báo cáo / payroll đọc bảng này theo số nhân viên thay vì quét toàn bộ record.
+ * Bản tính lại chỉ ghi đè khi không cũ hơn bản đang lưu (sourceUpdatedAt/records): 2 lần refresh cùng key
+ * chạy chồng nhau (2 request / 2 instance) không để bản tính từ dữ liệu cũ thắng.
+ * Sau mỗi lần refresh phát ReportDataChangedEvent để ReportCache bỏ báo cáo đã render của các tháng đó.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttendanceMonthlyService {
+
+    private final AttendanceRepo attendanceRepo;
+    private final AttendanceMonthlyRepo monthlyRepo;
+    private final HolidayCalendar holidayCalendar;
+    private final MongoTemplate mongo;
+    private final ApplicationEventPublisher events;
+    private final JobLockRepo lockRepo;
+    private final InstanceId instanceId;
+
+    @Value("${hrm.jobs.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private static final String BACKFILL_LOCK = "attendance_monthly_backfill";
+
+    public record RebuildResult(String from, String to, int months, long records, long summaries, long elapsedMs) {}
+
+    /** Tính lại các key mà các record này thuộc về (gọi sau khi ghi record) */
+    public void refresh(Collection<AttendanceRecord> records) {
+        Map<YearMonth, Set<String>> keys = new TreeMap<>();
+        for (var r : records) {
+            if (r.getEmployeeId() == null || r.getDate() == null) continue;
+            keys.computeIfAbsent(YearMonth.from(r.getDate()), k -> new HashSet<>()).add(r.getEmployeeId());
+        }
+        refreshKeys(keys);
+    }
+
+    /** Tính lại các tháng của 1 nhân viên giao với [from, to] */
+    public void refresh(String employeeId, LocalDate from, LocalDate to) {
+        Map<YearMonth, Set<String>> keys = new TreeMap<>();
+        for (var ym = YearMonth.from(from); !ym.isAfter(YearMonth.from(to)); ym = ym.plusMonths(1)) {
+            keys.put(ym, Set.of(employeeId));
+        }
+        refreshKeys(keys);
+    }
+
+    private void refreshKeys(Map<YearMonth, Set<String>> keys) {
+        for (var e : keys.entrySet()) {
+            YearMonth ym = e.getKey();
+            Map<String, AttendanceMonthly> acc = new HashMap<>();
+            for (var r : attendanceRepo.findByEmployeeIdInAndDateBetween(e.getValue(), ym.atDay(1), ym.atEndOfMonth())) {
+                add(acc, ym, r);
+            }
+            List<String> remove = new ArrayList<>();
+            for (String id : e.getValue()) {
+                if (!acc.containsKey(id)) remove.add(AttendanceMonthly.idOf(id, ym));
+            }
+            int skipped = monthlyRepo.replaceIfNotOlder(new ArrayList<>(acc.values()), remove);
+            if (skipped > 0) log.debug("attendance_monthly {}: {} summaries already newer, skipped", ym, skipped);
+        }
+        if (keys.isEmpty()) return;
+
+        Set<String> employeeIds = new HashSet<>();
+        keys.values().forEach(employeeIds::addAll);
+        events.publishEvent(new ReportDataChangedEvent(new HashSet<>(keys.keySet()), employeeIds, null));
+    }
+
+    /**
+     * Tính lại toàn bộ từ attendance_records cho [from, to] (null = từ tháng có record sớm nhất tới muộn nhất).
+     * Mỗi tháng đọc bằng cursor, giữ 1 document / nhân viên trong heap.
+     */
+    public RebuildResult rebuild(YearMonth from, YearMonth to) {
+        return rebuild(from, to, () -> {});
+    }
+
+    private RebuildResult rebuild(YearMonth from, YearMonth to, Runnable afterMonth) {
+        long started = System.nanoTime();
+        if (from == null || to == null) {
+            LocalDate first = boundary(Sort.Direction.ASC), last = boundary(Sort.Direction.DESC);
+            if (first == null) return new RebuildResult(null, null, 0, 0, 0, 0);
+            if (from == null) from = YearMonth.from(first);
+            if (to == null) to = YearMonth.from(last);
+        }
+
+        int months = 0;
+        long records = 0, summaries = 0;
+        for (var ym = from; !ym.isAfter(to); ym = ym.plusMonths(1)) {
+            Map<String, AttendanceMonthly> acc = new HashMap<>();
+            try (var stream = attendanceRepo.streamByDateBetween(ym.atDay(1), ym.atEndOfMonth(), null)) {
+                for (var it = stream.iterator(); it.hasNext(); ) {
+                    add(acc, ym, it.next());
+                    records++;
+                }
+            }
+            List<AttendanceMonthly> docs = new ArrayList<>(acc.values());
+            for (int i = 0; i < docs.size(); i += 1000) {
+                monthlyRepo.bulkReplace(docs.subList(i, Math.min(i + 1000, docs.size())), List.of());
+            }
+            monthlyRepo.removeMonthExcept(ym.toString(), acc.keySet());
+            summaries += docs.size();
+            months++;
+            afterMonth.run();
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("attendance_monthly rebuilt {}..{}: {} records -> {} summaries in {} ms", from, to, records, summaries, elapsedMs);
+        return new RebuildResult(from.toString(), to.toString(), months, records, summaries, elapsedMs);
+    }
+
+    /**
+     * Lần đầu deploy: bảng tổng còn trống mà đã có record -> dựng lại 1 lần.
+     * Chạy nền (không giữ ApplicationReadyEvent) và chỉ trên instance giữ được khoá job_locks;
+     * instance giữ khoá chết giữa chừng thì instance khởi động sau (khi lease hết) dựng lại từ đầu.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        Thread t = new Thread(this::backfill, "attendance-monthly-backfill");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void backfill() {
+        try {
+            // kiểm tra rẻ trước khi đụng tới khoá: trường hợp thường gặp là không cần làm gì
+            boolean unfinished = lockRepo.findById(BACKFILL_LOCK).map(l -> !l.isDone()).orElse(false);
+            if (!unfinished && !needsBackfill()) return;
+
+            String owner = instanceId.get();
+            var previous = lockRepo.acquire(BACKFILL_LOCK, owner, Instant.now().minusSeconds(leaseSeconds));
+            if (previous.isEmpty()) {
+                log.info("attendance_monthly backfill is running on another instance");
+                return;
+            }
+            boolean done = false;
+            try {
+                // lần chạy trước (đã có heartbeat) chưa xong -> bảng có thể chỉ đầy 1 phần, dựng lại dù không trống
+                boolean partial = previous.get().getHeartbeatAt() != null && !previous.get().isDone();
+                if (partial || needsBackfill()) {
+                    log.info("attendance_monthly is empty or partially built, rebuilding from attendance_records");
+                    rebuild(null, null, () -> {
+                        if (!lockRepo.heartbeat(BACKFILL_LOCK, owner)) {
+                            throw new IllegalStateException("attendance_monthly backfill lock lost");
+                        }
+                    });
+                }
+                done = true;
+            } finally {
+                lockRepo.release(BACKFILL_LOCK, owner, done);
+            }
+        } catch (Exception e) {
+            log.error("attendance_monthly backfill failed", e);
+        }
+    }
+
+    private boolean needsBackfill() {
+        return monthlyRepo.count() == 0 && attendanceRepo.count() > 0;
+    }
+
+    /**
+     * Tổng late/early/OT theo nhân viên cho kỳ [start, end] đọc từ attendance_monthly.
+     * Chỉ dùng được khi kỳ trùng ranh giới tháng; trả về null để caller tự quét record gốc.
+     * employeeIds null = cả công ty.
+     */
+    public Map<String, AttendanceSummaryService.AttendanceTotals> totals(Collection<String> employeeIds,
+                                                                        LocalDate start, LocalDate end) {
+        if (start.getDayOfMonth() != 1 || !end.equals(YearMonth.from(end).atEndOfMonth()) || end.isBefore(start)) {
+            return null;
+        }
+        List<String> months = new ArrayList<>();
+        for (var ym = YearMonth.from(start); !ym.isAfter(YearMonth.from(end)); ym = ym.plusMonths(1)) {
+            months.add(ym.toString());
+        }
+
+        var docs = employeeIds == null
+                ? monthlyRepo.findByMonthIn(months)
+                : monthlyRepo.findByEmployeeIdInAndMonthIn(employeeIds, months);
+        Map<String, AttendanceSummaryService.AttendanceTotals> out = new HashMap<>();
+        for (var m : docs) {
+            out.computeIfAbsent(m.getEmployeeId(), k -> new AttendanceSummaryService.AttendanceTotals()).add(m);
+        }
+        return out;
+    }
+
+    // ---------------------------------------------------------
+    // internals
+    // ---------------------------------------------------------
+
+    private void add(Map<String, AttendanceMonthly> acc, YearMonth ym, AttendanceRecord r) {
+        var m = acc.computeIfAbsent(r.getEmployeeId(), id -> AttendanceMonthly.builder()
+                .id(AttendanceMonthly.idOf(id, ym))
+                .employeeId(id)
+                .month(ym.toString())
+                .updatedAt(Instant.now())
+                .build());
+
+        if (r.getUpdatedAt() != null
+                && (m.getSourceUpdatedAt() == null || r.getUpdatedAt().isAfter(m.getSourceUpdatedAt()))) {
+            m.setSourceUpdatedAt(r.getUpdatedAt());
+        }
+        m.setRecords(m.getRecords() + 1);
+        String status = r.getStatus() == null || r.getStatus().isBlank() ? "PRESENT" : r.getStatus();
+        m.getStatusDays().merge(status, 1, Integer::sum);
+        m.setLateMinutes(m.getLateMinutes() + nvl(r.getLateMinutes()));
+        m.setEarlyMinutes(m.getEarlyMinutes() + nvl(r.getEarlyMinutes()));
+
+        int ot = nvl(r.getOtMinutes());
+        if (ot == 0) return;
+        // cùng cách phân loại với AttendanceSummaryService.AttendanceTotals
+        if (holidayCalendar.isHoliday(r.getDate())) m.setOtMinutesHoliday(m.getOtMinutesHoliday() + ot);
+        else if (DateUtils.isWeekend(r.getDate())) m.setOtMinutesWeekend(m.getOtMinutesWeekend() + ot);
+        else m.setOtMinutesWeekday(m.getOtMinutesWeekday() + ot);
+    }
+
+    private LocalDate boundary(Sort.Direction dir) {
+        Query q = new Query().with(Sort.by(dir, "date")).limit(1);
+        q.fields().include("date");
+        var r = mongo.findOne(q, AttendanceRecord.class);
+        return r == null ? null : r.getDate();
+    }
+
+    private static int nvl(Integer x) { return x == null ? 0 : x; }
+}
@@ -0,0 +1,136 @@
+// src/main/java/com/hrm/hrmapi/service/AttendanceRecalcService.java
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.domain.AttendanceRecord;
+import com.hrm.hrmapi.domain.WorkSchedule;
+import com.hrm.hrmapi.repo.AttendanceRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Recalc late/early/OT/status theo lô: đọc record bằng cursor, chạy applyRules song song
+ * trên ForkJoinPool riêng, chỉ ghi (bulk unordered) những record thực sự thay đổi.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttendanceRecalcService {
+
+    private final AttendanceRepo attendanceRepo;
+    private final AttendanceService attendanceService;
+    private final WorkScheduleService scheduleService;
+    private final AttendanceMonthlyService monthlyService;
+
+    @Value("${hrm.attendance.recalc.chunk-size:2000}")
+    private int chunkSize;
+
+    // 0 = số core
+    @Value("${hrm.attendance.recalc.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    public record RecalcResult(long scanned, long changed, long unchanged, long elapsedMs) {}
+
+    /** Callback sau mỗi lô (để báo tiến độ / throttle khi chạy nền) */
+    @FunctionalInterface
+    public interface ChunkListener {
+        void onChunk(int scanned, int changed);
+    }
+
+    @PostConstruct
+    public void init() {
+        int p = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(p);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Tính lại toàn bộ record trong [from, to]; employeeIds null/rỗng = cả công ty
+     */
+    public RecalcResult recalc(LocalDate from, LocalDate to, Collection<String> employeeIds) {
+        return recalc(from, to, employeeIds, (scanned, changed) -> {});
+    }
+
+    public RecalcResult recalc(LocalDate from, LocalDate to, Collection<String> employeeIds, ChunkListener listener) {
+        long started = System.nanoTime();
+        var schedule = scheduleService.getOrDefault();
+
+        long scanned = 0, changed = 0;
+        List<AttendanceRecord> chunk = new ArrayList<>(chunkSize);
+        try (var stream = attendanceRepo.streamByDateBetween(from, to, employeeIds)) {
+            var it = stream.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() >= chunkSize) {
+                    int n = processChunk(chunk, schedule);
+                    scanned += chunk.size();
+                    changed += n;
+                    listener.onChunk(chunk.size(), n);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            int n = processChunk(chunk, schedule);
+            scanned += chunk.size();
+            changed += n;
+            if (!chunk.isEmpty()) listener.onChunk(chunk.size(), n);
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        return new RecalcResult(scanned, changed, scanned - changed, elapsedMs);
+    }
+
+    /** applyRules song song cho 1 lô, ghi các record đổi giá trị; trả về số record đã đổi */
+    private int processChunk(List<AttendanceRecord> chunk, WorkSchedule schedule) {
+        if (chunk.isEmpty()) return 0;
+
+        List<AttendanceRecord> dirty = pool.submit(() -> chunk.parallelStream()
+                .filter(r -> {
+                    var before = Metrics.of(r);
+                    attendanceService.applyRules(r, schedule);
+                    return !before.equals(Metrics.of(r));
+                })
+                .toList()
+        ).join();
+
+        attendanceRepo.bulkUpdateMetrics(dirty);
+        monthlyService.refresh(dirty);
+        return dirty.size();
+    }
+
+    /** Các giá trị applyRules có thể thay đổi (không tính updatedAt) */
+    private record Metrics(String status, Integer late, Integer early, Integer ot) {
+        static Metrics of(AttendanceRecord r) {
+            return new Metrics(r.getStatus(), r.getLateMinutes(), r.getEarlyMinutes(), r.getOtMinutes());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Metrics m
+                    && Objects.equals(status, m.status)
+                    && Objects.equals(nz(late), nz(m.late))
+                    && Objects.equals(nz(early), nz(m.early))
+                    && Objects.equals(nz(ot), nz(m.ot));
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(status, nz(late), nz(early), nz(ot));
+        }
+
+        private static int nz(Integer x) { return x == null ? 0 : x; }
+    }
+}
@@ -1,12 +1,16 @@
 package com.hrm.hrmapi.service;
 
 import com.hrm.hrmapi.domain.*;
+import com.hrm.hrmapi.error.LeaseLostException;
 import com.hrm.hrmapi.repo.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.time.*;
@@ -19,11 +23,20 @@ public class AttendanceService {
     private final AttendanceRepo attendanceRepo;
     private final AttendanceBatchRepo batchRepo;
     private final EmployeeRepo employeeRepo;
-    private final HolidayRepo holidayRepo;
+    private final HolidayCalendar holidayCalendar;
     private final WorkScheduleService scheduleService;
+    private final AttendanceMonthlyService monthlyService;
+
+    // số dòng CSV gom lại cho 1 lần bulk upsert
+    @Value("${hrm.attendance.import.batch-size:1000}")
+    private int importBatchSize;
 
     private static final Set<DayOfWeek> WEEKENDS = Set.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY);
 
+    // status do applyRules tự suy ra -> tính lại mỗi lần, trừ khi quản lý đã đặt tay (statusManual);
+    // status khác (LEAVE, WFH, ...) không bao giờ bị xoá
+    private static final Set<String> RULE_STATUSES = Set.of("HOLIDAY", "ABSENT", "MISSING_PUNCH", "PRESENT");
+
     /**
      * Import CSV attendance data
      */
@@ -33,16 +46,57 @@ public class AttendanceService {
                 .filename(file.getOriginalFilename())
                 .importedBy(importedBy)
                 .importedAt(Instant.now())
+                .status("RUNNING")
                 .totalRows(0).success(0).failed(0)
                 .errors(new ArrayList<>())
                 .build();
         batch = batchRepo.save(batch);
 
-        try (var br = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+        try (InputStream in = file.getInputStream()) {
+            batch = runImport(batch, in);
+            if ("QUEUED".equals(batch.getStatus())) {
+                // import đồng bộ không có spool để chạy lại
+                batch.getErrors().add("FATAL: interrupted");
+                batch.setStatus("FAILED");
+                batch.setFinishedAt(Instant.now());
+                batch = batchRepo.save(batch);
+            }
+            return batch;
+        } catch (Exception e) {
+            batch.getErrors().add("FATAL: " + e.getMessage());
+            batch.setStatus("FAILED");
+            batch.setFinishedAt(Instant.now());
+            return batchRepo.save(batch);
+        }
+    }
+
+    /**
+     * Pipeline import: nạp bảng code -> id 1 lần, đọc CSV dạng stream,
+     * gom từng lô (importBatchSize dòng) rồi upsert bulk theo index emp_date.
+     * Thread bị interrupt (app tắt) -> dừng, trả batch về QUEUED (chưa xong) để chạy lại từ spool.
+     * Batch async (có owner) chỉ ghi khi còn giữ lease; mất lease -> LeaseLostException, dừng ngay.
+     */
+    public AttendanceBatch runImport(AttendanceBatch batch, InputStream in) {
+        long started = System.nanoTime();
+        String owner = batch.getOwner();   // null = import đồng bộ, không có lease
+        boolean fatal = false, interrupted = false;
+        batch.setStatus("RUNNING");
+        if (batch.getStartedAt() == null) batch.setStartedAt(Instant.now());
+
+        Map<String, String> codeIndex = employeeRepo.loadCodeIndex();
+        var schedule = scheduleService.getOrDefault();
+        var chunk = new LinkedHashMap<String, List<CsvRow>>();
+        int pending = 0;
+
+        try (var br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
             // CSV header: employeeCode,fullName,date,checkIn,checkOut,source
             String line;
             int row = 0;
             while ((line = br.readLine()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    interrupted = true;
+                    break;
+                }
                 row++;
                 if (row == 1 && line.toLowerCase().contains("employeecode")) continue; // skip header
                 batch.setTotalRows(batch.getTotalRows() + 1);
@@ -55,50 +109,162 @@ public class AttendanceService {
                     String outStr = cols.length > 4 ? cols[4].trim() : "";
                     String src = cols.length > 5 ? cols[5].trim() : "IMPORT_CSV";
 
-                    var emp = employeeRepo.findAll().stream()
-                            .filter(e -> e.getCode() != null && e.getCode().equalsIgnoreCase(code))
-                            .findFirst()
-                            .orElseThrow(() -> new RuntimeException("Employee not found: " + code));
+                    String empId = codeIndex.get(code.toLowerCase());
+                    if (empId == null) throw new RuntimeException("Employee not found: " + code);
 
                     LocalDate date = LocalDate.parse(dateStr);
                     LocalTime ci = inStr.isBlank() ? null : LocalTime.parse(inStr);
                     LocalTime co = outStr.isBlank() ? null : LocalTime.parse(outStr);
 
-                    upsertRecord(batch.getId(), emp.getId(), date, ci, co, src);
-
-                    batch.setSuccess(batch.getSuccess() + 1);
+                    chunk.computeIfAbsent(empId + "|" + date, k -> new ArrayList<>())
+                            .add(new CsvRow(row, empId, date, ci, co, src));
+                    pending++;
                 } catch (Exception ex) {
                     batch.setFailed(batch.getFailed() + 1);
                     batch.getErrors().add("Row " + row + ": " + ex.getMessage());
                 }
+
+                // ghi lô nằm ngoài try của từng dòng: lỗi ghi không bị tính vào dòng vừa đọc
+                if (pending >= importBatchSize) {
+                    flushChunk(batch, chunk, schedule);
+                    pending = 0;
+                    // lưu tiến độ để GET /attendance/import/{batchId} theo dõi được
+                    batch.setLastProgressAt(Instant.now());
+                    saveOwned(batch, owner);
+                }
             }
+            if (!interrupted) flushChunk(batch, chunk, schedule);
+        } catch (LeaseLostException e) {
+            throw e;
         } catch (Exception e) {
-            batch.getErrors().add("FATAL: " + e.getMessage());
+            if (Thread.currentThread().isInterrupted()) {
+                interrupted = true;
+            } else {
+                batch.getErrors().add("FATAL: " + e.getMessage());
+                fatal = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.interrupted();   // xoá cờ tạm thời để driver Mongo còn ghi được trạng thái
+            batch.setStatus("QUEUED");
+            batch.setOwner(null);
+            try {
+                return saveOwned(batch, owner);
+            } finally {
+                Thread.currentThread().interrupt();
+            }
+        }
+        batch.setStatus(fatal ? "FAILED" : "DONE");
+        batch.setFinishedAt(Instant.now());
+        batch.setLastProgressAt(batch.getFinishedAt());
+        long elapsedNanos = Math.max(System.nanoTime() - started, 1);
+        batch.setDurationMs(elapsedNanos / 1_000_000);
+        batch.setRowsPerSecond(batch.getTotalRows() * 1_000_000_000d / elapsedNanos);
+        return saveOwned(batch, owner);
+    }
+
+    /** Ghi batch; batch async chỉ ghi khi owner trong DB vẫn là owner (không ghi đè instance đã nhận lại) */
+    private AttendanceBatch saveOwned(AttendanceBatch batch, String owner) {
+        if (owner == null) return batchRepo.save(batch);
+        if (!batchRepo.saveIfOwner(batch, owner)) throw new LeaseLostException(batch.getId(), owner);
+        return batch;
+    }
+
+    /** 1 dòng CSV đã parse, chờ ghi */
+    private record CsvRow(int row, String employeeId, LocalDate date,
+                          LocalTime checkIn, LocalTime checkOut, String source) {}
+
+    /**
+     * Ghi 1 lô và cộng success/failed cho từng dòng trong lô đúng 1 lần.
+     * Lỗi của cả lô (đọc record hiện có, áp rule, ...) -> mọi dòng trong lô tính failed, ghi 1 dòng lỗi chung.
+     * Lô luôn được dọn sau khi ghi, kể cả khi lỗi: không dòng nào bị ghi / đếm lại ở lô sau.
+     */
+    private void flushChunk(AttendanceBatch batch, Map<String, List<CsvRow>> chunk, WorkSchedule schedule) {
+        if (chunk.isEmpty()) return;
+        try {
+            writeChunk(batch, chunk, schedule);
+        } catch (Exception ex) {
+            int count = 0, firstRow = Integer.MAX_VALUE, lastRow = 0;
+            for (var rows : chunk.values()) {
+                for (var r : rows) {
+                    count++;
+                    firstRow = Math.min(firstRow, r.row());
+                    lastRow = Math.max(lastRow, r.row());
+                }
+            }
+            batch.setFailed(batch.getFailed() + count);
+            batch.getErrors().add("Rows " + firstRow + "-" + lastRow + " (" + count + " rows): " + ex.getMessage());
+        } finally {
+            chunk.clear();
         }
-        return batchRepo.save(batch);
     }
 
     /**
-     * Upsert single attendance record
+     * Lấy record hiện có bằng 1 query, áp rule theo thứ tự dòng
+     * (dòng sau cùng key ghi đè dòng trước như khi lưu tuần tự), rồi bulk upsert và cập nhật attendance_monthly.
+     * Chỉ cộng success/failed sau khi bulk upsert xong; bước sau đó không được ném lỗi ra ngoài.
      */
-    private void upsertRecord(String batchId, String empId, LocalDate date,
-                              LocalTime ci, LocalTime co, String src) {
+    private void writeChunk(AttendanceBatch batch, Map<String, List<CsvRow>> chunk, WorkSchedule schedule) {
+        Set<String> empIds = new HashSet<>();
+        LocalDate from = null, to = null;
+        for (var rows : chunk.values()) {
+            var r = rows.get(0);
+            empIds.add(r.employeeId());
+            if (from == null || r.date().isBefore(from)) from = r.date();
+            if (to == null || r.date().isAfter(to)) to = r.date();
+        }
 
-        var rec = attendanceRepo.findByEmployeeIdAndDate(empId, date)
-                .orElseGet(() -> AttendanceRecord.builder()
-                        .employeeId(empId).date(date).createdAt(Instant.now()).build());
+        Map<String, AttendanceRecord> existing = new HashMap<>();
+        for (var rec : attendanceRepo.findByEmployeeIdInAndDateBetween(empIds, from, to)) {
+            existing.put(rec.getEmployeeId() + "|" + rec.getDate(), rec);
+        }
 
-        rec.setBatchId(batchId);
-        rec.setCheckIn(ci);
-        rec.setCheckOut(co);
-        rec.setSource(src);
+        List<AttendanceRecord> records = new ArrayList<>(chunk.size());
+        List<List<CsvRow>> sources = new ArrayList<>(chunk.size());
+        for (var entry : chunk.entrySet()) {
+            var first = entry.getValue().get(0);
+            var rec = existing.getOrDefault(entry.getKey(), AttendanceRecord.builder()
+                    .employeeId(first.employeeId()).date(first.date()).createdAt(Instant.now()).build());
+
+            for (var r : entry.getValue()) {
+                rec.setBatchId(batch.getId());
+                rec.setCheckIn(r.checkIn());
+                rec.setCheckOut(r.checkOut());
+                rec.setSource(r.source());
+                applyRules(rec, schedule);
+            }
+            rec.setUpdatedAt(Instant.now());
+            records.add(rec);
+            sources.add(entry.getValue());
+        }
 
-        // Apply rules theo schedule
-        var schedule = scheduleService.getOrDefault();
-        applyRules(rec, schedule);
+        Map<Integer, String> failedOps = new HashMap<>();
+        try {
+            attendanceRepo.bulkUpsert(records);
+        } catch (BulkOperationException ex) {
+            for (var err : ex.getErrors()) failedOps.put(err.getIndex(), err.getMessage());
+        } catch (Exception ex) {
+            for (int i = 0; i < records.size(); i++) failedOps.put(i, ex.getMessage());
+        }
+        for (int i = 0; i < sources.size(); i++) {
+            String err = failedOps.get(i);
+            for (var r : sources.get(i)) {
+                if (err == null) {
+                    batch.setSuccess(batch.getSuccess() + 1);
+                } else {
+                    batch.setFailed(batch.getFailed() + 1);
+                    batch.getErrors().add("Row " + r.row() + ": " + err);
+                }
+            }
+        }
 
-        rec.setUpdatedAt(Instant.now());
-        attendanceRepo.save(rec);
+        // bảng tổng hợp tháng là dữ liệu dẫn xuất (backfill/recalc dựng lại được): lỗi ở đây không làm hỏng các dòng đã ghi
+        try {
+            monthlyService.refresh(records);
+        } catch (Exception ex) {
+            batch.getErrors().add("Monthly summary refresh failed: " + ex.getMessage());
+        }
     }
 
     /**
@@ -106,9 +272,16 @@ public class AttendanceService {
      * Public để controller có thể gọi khi quick edit
      */
     public AttendanceRecord applyRules(AttendanceRecord r, WorkSchedule s) {
+        // 0. Bỏ status do rule suy ra lần trước (vd ngày lễ bị xoá/dời -> HOLIDAY phải thành ABSENT/PRESENT);
+        //    status quản lý đặt tay giữ nguyên như trước đây
+        if (!Boolean.TRUE.equals(r.getStatusManual())
+                && r.getStatus() != null && RULE_STATUSES.contains(r.getStatus().toUpperCase())) {
+            r.setStatus(null);
+        }
+
         // 1. Check weekend/holiday
         boolean isWeekend = WEEKENDS.contains(r.getDate().getDayOfWeek());
-        boolean isHoliday = !holidayRepo.findByDateBetween(r.getDate(), r.getDate()).isEmpty();
+        boolean isHoliday = holidayCalendar.isHoliday(r.getDate());
 
         if (isHoliday || isWeekend) {
             r.setStatus("HOLIDAY");
@@ -0,0 +1,352 @@
+// src/main/java/com/hrm/hrmapi/service/EmployeeImportService.java
+package com.hrm.hrmapi.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hrm.hrmapi.domain.Employee;
+import com.hrm.hrmapi.domain.User;
+import com.hrm.hrmapi.repo.EmployeeCodes;
+import com.hrm.hrmapi.repo.EmployeeRepo;
+import com.hrm.hrmapi.repo.EmployeeSearchTokens;
+import com.hrm.hrmapi.web.dto.CreateEmployeeRequest;
+import com.opencsv.CSVReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Import hàng loạt nhân viên (CSV có header hoặc JSON lines):
+ * parse -> validate song song theo ràng buộc của CreateEmployeeRequest -> loại trùng code
+ * (tập code đã có nạp 1 lần + trùng trong file) -> insert bulk unordered theo lô
+ * -> (tuỳ chọn) tạo User EMPLOYEE, băm BCrypt trên pool giới hạn rồi insert bulk.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmployeeImportService {
+
+    private final MongoTemplate mongo;
+    private final EmployeeRepo employeeRepo;
+    private final Validator validator;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+
+    @Value("${hrm.employee.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${hrm.employee.import.max-rows:50000}")
+    private int maxRows;
+
+    // BCrypt tốn CPU – giới hạn số luồng để không chiếm hết CPU của API
+    @Value("${hrm.employee.import.hash-threads:2}")
+    private int hashThreads;
+
+    private ExecutorService hashPool;
+
+    @PostConstruct
+    public void init() {
+        var seq = new AtomicInteger();
+        hashPool = Executors.newFixedThreadPool(hashThreads, r -> {
+            Thread t = new Thread(r, "employee-import-hash-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdownNow();
+    }
+
+    /** 1 dòng input: các field của CreateEmployeeRequest + email/password cho User (tuỳ chọn) */
+    public record Row(String code, String fullName, String department, String position, String status,
+                      LocalDate joinDate, String phone, String address, String email, String password) {}
+
+    public record RowResult(int line, String code, String status, String employeeId, String userId,
+                            List<String> errors) {}
+
+    public record ImportReport(int total, int created, int failed, int usersCreated,
+                               long parseMs, long validateMs, long insertMs, long userMs, long totalMs,
+                               double rowsPerSecond, List<RowResult> rows) {}
+
+    public enum Format { CSV, JSONL }
+
+    public ImportReport importFile(InputStream in, Format format, boolean createUsers, String defaultPassword) throws Exception {
+        long t0 = System.nanoTime();
+
+        // ===== parse =====
+        List<Row> rows = new ArrayList<>();
+        Map<Integer, String> parseErrors = new HashMap<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            if (format == Format.CSV) parseCsv(br, rows, parseErrors);
+            else parseJsonLines(br, rows, parseErrors);
+        }
+        long t1 = System.nanoTime();
+
+        // ===== validate (song song) =====
+        List<String>[] errors = validate(rows, parseErrors, createUsers, defaultPassword);
+
+        // trùng code: với DB (nạp 1 lần) và trong chính file (dòng đầu thắng)
+        Set<String> taken = new HashSet<>(employeeRepo.loadCodeIndex().keySet());
+        Employee[] employees = new Employee[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            if (!errors[i].isEmpty()) continue;
+            Row r = rows.get(i);
+            if (!taken.add(EmployeeCodes.normalize(r.code()))) {
+                errors[i].add("code: Employee code already exists");
+                continue;
+            }
+            employees[i] = toEmployee(r);
+        }
+        long t2 = System.nanoTime();
+
+        // ===== insert employees =====
+        insertBatches(employees, errors, Employee.class);
+        long t3 = System.nanoTime();
+
+        // ===== users =====
+        User[] users = new User[rows.size()];
+        if (createUsers) {
+            prepareUsers(rows, employees, errors, users, defaultPassword);
+            insertBatches(users, errors, User.class);
+        }
+        long t4 = System.nanoTime();
+
+        // ===== report =====
+        List<RowResult> results = new ArrayList<>(rows.size());
+        int created = 0, usersCreated = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            Employee e = employees[i];
+            boolean empOk = e != null && errors[i].stream().noneMatch(x -> x.startsWith("insert:"));
+            boolean userOk = users[i] != null && errors[i].stream().noneMatch(x -> x.startsWith("user:"));
+            if (empOk) created++;
+            if (empOk && userOk) usersCreated++;
+            results.add(new RowResult(i + 1, rows.get(i).code(),
+                    empOk ? (errors[i].isEmpty() ? "CREATED" : "CREATED_WITH_WARNINGS") : "FAILED",
+                    empOk ? e.getId() : null,
+                    empOk && userOk ? users[i].getId() : null,
+                    errors[i]));
+        }
+
+        long totalMs = ms(t4 - t0);
+        var report = new ImportReport(rows.size(), created, rows.size() - created, usersCreated,
+                ms(t1 - t0), ms(t2 - t1), ms(t3 - t2), ms(t4 - t3), totalMs,
+                rows.size() * 1000d / Math.max(totalMs, 1), results);
+        log.info("Employee import: {} rows, {} created, {} failed, {} users in {} ms",
+                report.total(), report.created(), report.failed(), report.usersCreated(), totalMs);
+        return report;
+    }
+
+    // ---------------------------------------------------------
+    // parse
+    // ---------------------------------------------------------
+
+    private void parseCsv(BufferedReader br, List<Row> rows, Map<Integer, String> parseErrors) throws Exception {
+        try (CSVReader reader = new CSVReader(br)) {
+            String[] header = reader.readNext();
+            if (header == null) return;
+            Map<String, Integer> col = new HashMap<>();
+            for (int i = 0; i < header.length; i++) {
+                col.put(header[i].replace("﻿", "").trim().toLowerCase(Locale.ROOT), i);
+            }
+
+            String[] cells;
+            while ((cells = reader.readNext()) != null) {
+                if (cells.length == 1 && cells[0].isBlank()) continue;
+                checkMaxRows(rows);
+                int idx = rows.size();
+                LocalDate joinDate = null;
+                String jd = cell(cells, col, "joindate");
+                if (jd != null) {
+                    try {
+                        joinDate = LocalDate.parse(jd);
+                    } catch (Exception e) {
+                        parseErrors.put(idx, "joinDate: must be yyyy-MM-dd");
+                    }
+                }
+                rows.add(new Row(cell(cells, col, "code"), cell(cells, col, "fullname"), cell(cells, col, "department"),
+                        cell(cells, col, "position"), cell(cells, col, "status"), joinDate,
+                        cell(cells, col, "phone"), cell(cells, col, "address"),
+                        cell(cells, col, "email"), cell(cells, col, "password")));
+            }
+        }
+    }
+
+    private void parseJsonLines(BufferedReader br, List<Row> rows, Map<Integer, String> parseErrors) throws Exception {
+        var reader = objectMapper.readerFor(Row.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        String line;
+        while ((line = br.readLine()) != null) {
+            if (line.isBlank()) continue;
+            checkMaxRows(rows);
+            try {
+                rows.add(reader.readValue(line));
+            } catch (Exception e) {
+                parseErrors.put(rows.size(), "parse: invalid JSON line");
+                rows.add(new Row(null, null, null, null, null, null, null, null, null, null));
+            }
+        }
+    }
+
+    private void checkMaxRows(List<Row> rows) {
+        if (rows.size() >= maxRows) {
+            throw new IllegalArgumentException("Too many rows (max " + maxRows + ")");
+        }
+    }
+
+    private static String cell(String[] cells, Map<String, Integer> col, String name) {
+        Integer i = col.get(name);
+        if (i == null || i >= cells.length) return null;
+        String v = cells[i].trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    // ---------------------------------------------------------
+    // validate / build
+    // ---------------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private List<String>[] validate(List<Row> rows, Map<Integer, String> parseErrors,
+                                    boolean createUsers, String defaultPassword) {
+        List<String>[] errors = new List[rows.size()];
+        IntStream.range(0, rows.size()).parallel().forEach(i -> {
+            List<String> errs = new ArrayList<>();
+            String pe = parseErrors.get(i);
+            if (pe != null) errs.add(pe);
+
+            Row r = rows.get(i);
+            var req = new CreateEmployeeRequest(r.code(), r.fullName(), r.department(), r.position(),
+                    r.status(), r.joinDate(), r.phone(), r.address());
+            for (var v : validator.validate(req)) {
+                errs.add(v.getPropertyPath() + ": " + v.getMessage());
+            }
+
+            if (createUsers && StringUtils.hasText(r.email())) {
+                if (!r.email().contains("@")) errs.add("email: must be a well-formed email address");
+                if (!StringUtils.hasText(r.password()) && !StringUtils.hasText(defaultPassword)) {
+                    errs.add("password: required (or pass tempPassword)");
+                }
+            }
+            errors[i] = errs;
+        });
+        return errors;
+    }
+
+    private static Employee toEmployee(Row r) {
+        var e = Employee.builder()
+                .id(new ObjectId().toHexString())   // gán trước để liên kết User mà không phải đọc lại
+                .code(r.code().trim())
+                .fullName(r.fullName())
+                .department(r.department())
+                .position(r.position())
+                .status(r.status())
+                .joinDate(r.joinDate() != null ? r.joinDate() : LocalDate.now())
+                .phone(r.phone())
+                .address(r.address())
+                .build();
+        e.setCodeNormalized(EmployeeCodes.normalize(e.getCode()));
+        e.setSearchTokens(EmployeeSearchTokens.tokens(e));
+        return e;
+    }
+
+    /** Tạo User cho các dòng đã insert được và có email; băm mật khẩu song song trên hashPool */
+    private void prepareUsers(List<Row> rows, Employee[] employees, List<String>[] errors,
+                              User[] users, String defaultPassword) throws Exception {
+        Set<String> emails = existingEmails();
+        List<Integer> idx = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Row r = rows.get(i);
+            if (employees[i] == null || !errors[i].isEmpty() || !StringUtils.hasText(r.email())) continue;
+            String email = r.email().trim().toLowerCase(Locale.ROOT);
+            if (!emails.add(email)) {
+                errors[i].add("user: Email already exists");
+                continue;
+            }
+            idx.add(i);
+        }
+
+        List<Future<String>> hashes = new ArrayList<>(idx.size());
+        for (int i : idx) {
+            String raw = StringUtils.hasText(rows.get(i).password()) ? rows.get(i).password() : defaultPassword;
+            hashes.add(hashPool.submit(() -> passwordEncoder.encode(raw)));
+        }
+        for (int k = 0; k < idx.size(); k++) {
+            int i = idx.get(k);
+            Employee e = employees[i];
+            users[i] = User.builder()
+                    .id(new ObjectId().toHexString())
+                    .email(rows.get(i).email().trim().toLowerCase(Locale.ROOT))
+                    .fullName(e.getFullName())
+                    .passwordHash(hashes.get(k).get())
+                    .role(User.Role.EMPLOYEE)
+                    .employeeId(e.getId())
+                    .build();
+        }
+    }
+
+    private Set<String> existingEmails() {
+        Query query = new Query(Criteria.where("email").ne(null));
+        query.fields().include("email");
+        Set<String> out = new HashSet<>();
+        try (var stream = mongo.stream(query, User.class)) {
+            stream.forEach(u -> out.add(u.getEmail().trim().toLowerCase(Locale.ROOT)));
+        }
+        return out;
+    }
+
+    /** Insert bulk unordered theo lô; lỗi từng document (vd trùng key do ghi đồng thời) gắn lại vào dòng tương ứng */
+    <T> void insertBatches(T[] docs, List<String>[] errors, Class<T> type) {
+        String prefix = type == User.class ? "user: " : "insert: ";
+        List<Integer> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i <= docs.length; i++) {
+            if (i < docs.length && docs[i] != null) batch.add(i);
+            if (batch.size() < batchSize && i < docs.length) continue;
+            if (batch.isEmpty()) continue;
+
+            BulkOperations ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+            for (int j : batch) ops.insert(docs[j]);
+            try {
+                ops.execute();
+            } catch (BulkOperationException ex) {
+                for (var err : ex.getErrors()) {
+                    int row = batch.get(err.getIndex());
+                    errors[row].add(prefix + (err.getCode() == 11000 ? "duplicate key" : err.getMessage()));
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private static long ms(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,71 @@
+// src/main/java/com/hrm/hrmapi/service/EmployeeSearchService.java
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.domain.Employee;
+import com.hrm.hrmapi.repo.EmployeeRepo;
+import com.hrm.hrmapi.repo.EmployeeSearchTokens;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Tìm nhanh nhân viên (type-ahead): lấy ứng viên qua index searchTokens rồi xếp hạng trong bộ nhớ:
+ * trùng mã > tên bắt đầu bằng từ khoá > trùng nguyên từ > trùng prefix; field tên/mã nặng hơn phòng ban/chức danh.
+ */
+@Service
+@RequiredArgsConstructor
+public class EmployeeSearchService {
+
+    // số ứng viên tối đa lấy từ Mongo để xếp hạng
+    private static final int CANDIDATES = 500;
+
+    private final EmployeeRepo employeeRepo;
+
+    public List<Employee> search(String q, int limit) {
+        List<String> tokens = EmployeeSearchTokens.queryTokens(q);
+        if (tokens.isEmpty()) return List.of();
+
+        String folded = String.join(" ", tokens);
+        return employeeRepo.findBySearchTokens(tokens, CANDIDATES).stream()
+                .map(e -> new Scored(e, score(e, folded, tokens)))
+                .sorted(Comparator.comparingInt(Scored::score).reversed()
+                        .thenComparing(s -> EmployeeSearchTokens.fold(s.employee().getFullName())))
+                .limit(limit)
+                .map(Scored::employee)
+                .toList();
+    }
+
+    private record Scored(Employee employee, int score) {}
+
+    private static int score(Employee e, String folded, List<String> tokens) {
+        int score = 0;
+        String code = EmployeeSearchTokens.fold(e.getCode());
+        String name = EmployeeSearchTokens.fold(e.getFullName());
+        if (code.equals(folded)) score += 100;
+        if (name.startsWith(folded)) score += 30;
+
+        score += fieldScore(e.getFullName(), tokens, 3);
+        score += fieldScore(e.getCode(), tokens, 3);
+        score += fieldScore(e.getPhone(), tokens, 2);
+        score += fieldScore(e.getPosition(), tokens, 1);
+        score += fieldScore(e.getDepartment(), tokens, 1);
+        return score;
+    }
+
+    /** mỗi token: trùng nguyên từ = 4 điểm, là prefix của từ = 2 điểm; nhân trọng số field */
+    private static int fieldScore(String value, List<String> tokens, int weight) {
+        List<String> words = EmployeeSearchTokens.words(value);
+        int s = 0;
+        for (String t : tokens) {
+            int best = 0;
+            for (String w : words) {
+                if (w.equals(t)) { best = 4; break; }
+                if (w.startsWith(t)) best = 2;
+            }
+            s += best;
+        }
+        return s * weight;
+    }
+}
@@ -0,0 +1,123 @@
+// src/main/java/com/hrm/hrmapi/service/HolidayCalendar.java
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.domain.Holiday;
+import com.hrm.hrmapi.repo.HolidayRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lịch ngày lễ/cuối tuần giữ trong bộ nhớ, không query Mongo trên hot path.
+ * Mỗi năm là 1 bitset bất biến (bit = day-of-year - 1) cho cờ holiday và cờ ngày làm việc:
+ * isHoliday / isWorkingDay là O(1), countWorkingDays là O(số ngày / 64).
+ * HolidayController gọi invalidate() khi thêm/sửa/xoá ngày lễ; snapshot cũng tự nạp lại sau MAX_AGE.
+ */
+@Component
+@RequiredArgsConstructor
+public class HolidayCalendar {
+
+    private final HolidayRepo holidayRepo;
+
+    // ngày lễ sửa ở instance khác / trực tiếp trong DB: tối đa chừng này mới thấy
+    private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+    private final ReloadingSnapshot<Snapshot> snapshot = new ReloadingSnapshot<>(this::load, MAX_AGE);
+
+    public boolean isHoliday(LocalDate d) {
+        return year(d.getYear()).isHoliday(d.getDayOfYear() - 1);
+    }
+
+    public boolean isWeekend(LocalDate d) {
+        return DateUtils.isWeekend(d);
+    }
+
+    /** Ngày làm việc = không phải T7/CN và không phải ngày lễ */
+    public boolean isWorkingDay(LocalDate d) {
+        return year(d.getYear()).isWorking(d.getDayOfYear() - 1);
+    }
+
+    /** Đếm ngày làm việc trong [from, to] (bao gồm 2 đầu) */
+    public int countWorkingDays(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) return 0;
+        int count = 0;
+        for (int y = from.getYear(); y <= to.getYear(); y++) {
+            int startIdx = (y == from.getYear()) ? from.getDayOfYear() - 1 : 0;
+            int endIdx = (y == to.getYear()) ? to.getDayOfYear() - 1 : LocalDate.of(y, 12, 31).getDayOfYear() - 1;
+            count += year(y).countWorking(startIdx, endIdx);
+        }
+        return count;
+    }
+
+    /** Bỏ cache; lần gọi kế tiếp sẽ nạp lại toàn bộ holidays */
+    public void invalidate() {
+        snapshot.invalidate();
+    }
+
+    // ---------------------------------------------------------
+    // internals
+    // ---------------------------------------------------------
+
+    private YearCalendar year(int y) {
+        final Snapshot s = snapshot.get();
+        return s.years.computeIfAbsent(y, k -> YearCalendar.build(k, s.holidaysByYear.getOrDefault(k, Set.of())));
+    }
+
+    private Snapshot load() {
+        Map<Integer, Set<LocalDate>> byYear = new HashMap<>();
+        for (Holiday h : holidayRepo.findAll()) {
+            if (h.getDate() == null) continue;
+            byYear.computeIfAbsent(h.getDate().getYear(), k -> new HashSet<>()).add(h.getDate());
+        }
+        return new Snapshot(byYear, new ConcurrentHashMap<>());
+    }
+
+    private record Snapshot(Map<Integer, Set<LocalDate>> holidaysByYear,
+                            ConcurrentHashMap<Integer, YearCalendar> years) {}
+
+    /** Bitset 1 năm: 6 word x 64 bit >= 366 ngày */
+    private static final class YearCalendar {
+        private final long[] holiday = new long[6];
+        private final long[] working = new long[6];
+
+        static YearCalendar build(int year, Set<LocalDate> holidays) {
+            var cal = new YearCalendar();
+            LocalDate d = LocalDate.of(year, 1, 1);
+            for (int i = 0; d.getYear() == year; i++, d = d.plusDays(1)) {
+                boolean isHoliday = holidays.contains(d);
+                DayOfWeek w = d.getDayOfWeek();
+                boolean weekend = w == DayOfWeek.SATURDAY || w == DayOfWeek.SUNDAY;
+                if (isHoliday) cal.holiday[i >>> 6] |= 1L << i;
+                if (!isHoliday && !weekend) cal.working[i >>> 6] |= 1L << i;
+            }
+            return cal;
+        }
+
+        boolean isHoliday(int idx) {
+            return (holiday[idx >>> 6] & (1L << idx)) != 0;
+        }
+
+        boolean isWorking(int idx) {
+            return (working[idx >>> 6] & (1L << idx)) != 0;
+        }
+
+        int countWorking(int fromIdx, int toIdx) {
+            int fw = fromIdx >>> 6, tw = toIdx >>> 6;
+            long first = -1L << fromIdx;               // bỏ các bit < fromIdx
+            long last = -1L >>> (63 - (toIdx & 63));   // bỏ các bit > toIdx
+            if (fw == tw) return Long.bitCount(working[fw] & first & last);
+
+            int n = Long.bitCount(working[fw] & first);
+            for (int w = fw + 1; w < tw; w++) n += Long.bitCount(working[w]);
+            return n + Long.bitCount(working[tw] & last);
+        }
+    }
+}
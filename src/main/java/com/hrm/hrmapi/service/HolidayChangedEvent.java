@@ -0,0 +1,8 @@
+// src/main/java/com/hrm/hrmapi/service/HolidayChangedEvent.java
+package com.hrm.hrmapi.service;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/** Phát ra khi HolidayController thêm/sửa/xoá ngày lễ; dates = các ngày bị ảnh hưởng (ngày cũ + ngày mới) */
+public record HolidayChangedEvent(String action, Set<LocalDate> dates) {}
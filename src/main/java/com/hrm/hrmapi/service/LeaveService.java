@@ -3,12 +3,12 @@ package com.hrm.hrmapi.service;
 import com.hrm.hrmapi.domain.*;
 import com.hrm.hrmapi.repo.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.*;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static org.springframework.http.HttpStatus.*;
 
@@ -19,14 +19,15 @@ public class LeaveService {
     private final LeaveRequestRepo leaveRepo;
     private final LeaveQuotaRepo quotaRepo;
     private final LeaveTypeRepo typeRepo;
-    private final HolidayRepo holidayRepo;
+    private final HolidayCalendar holidayCalendar;
     private final AttendanceRepo attendanceRepo;
+    private final AttendanceMonthlyService monthlyService;
+    private final ApplicationEventPublisher events;
 
     // session weight
     private static final Map<String, Double> SESSION = Map.of(
             "AM", 0.5, "PM", 0.5, "FULL", 1.0
     );
-    private static final Set<DayOfWeek> WEEKENDS = Set.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY);
 
     public LeaveQuota quotaOf(String employeeId, int year) {
         return quotaRepo.findByEmployeeIdAndYear(employeeId, year)
@@ -49,7 +50,9 @@ public class LeaveService {
         req.setCreatedBy(creator);
         req.setCreatedAt(java.time.Instant.now());
         req.setUpdatedAt(req.getCreatedAt());
-        return leaveRepo.save(req);
+        var saved = leaveRepo.save(req);
+        reportDataChanged(saved);
+        return saved;
     }
 
     /** PENDING -> APPROVED, trừ quota nếu cần, tạo/điều chỉnh attendance status=LEAVE */
@@ -78,7 +81,9 @@ public class LeaveService {
         req.setStatus("APPROVED");
         req.setApproverId(approverId);
         req.setUpdatedAt(java.time.Instant.now());
-        return leaveRepo.save(req);
+        var saved = leaveRepo.save(req);
+        reportDataChanged(saved);
+        return saved;
     }
 
     public LeaveRequest reject(String id, String approverId, String note) {
@@ -92,19 +97,18 @@ public class LeaveService {
         req.setApproverId(approverId);
         req.setManagerNote(note);
         req.setUpdatedAt(java.time.Instant.now());
-        return leaveRepo.save(req);
+        var saved = leaveRepo.save(req);
+        reportDataChanged(saved);
+        return saved;
     }
 
     /** Tính tổng ngày nghỉ (bỏ weekend/holiday, tính AM/PM) */
     public double computeDays(LocalDate start, String startSession,
                               LocalDate end, String endSession) {
-        var holidays = holidayRepo.findByDateBetween(start, end)
-                .stream().map(Holiday::getDate).collect(Collectors.toSet());
-
         double sum = 0;
         LocalDate d = start;
         while (!d.isAfter(end)) {
-            if (!WEEKENDS.contains(d.getDayOfWeek()) && !holidays.contains(d)) {
+            if (holidayCalendar.isWorkingDay(d)) {
                 if (d.equals(start) && d.equals(end)) {
                     // cùng 1 ngày
                     sum += sessionWeight(startSession, endSession);
@@ -141,6 +145,12 @@ public class LeaveService {
         return 1.0;
     }
 
+    /** Báo cáo nghỉ phép xếp đơn theo tháng của ngày bắt đầu */
+    private void reportDataChanged(LeaveRequest r) {
+        events.publishEvent(new ReportDataChangedEvent(
+                Set.of(YearMonth.from(r.getStartDate())), Set.of(r.getEmployeeId()), null));
+    }
+
     /** Ghi/ghi đè AttendanceRecord status=LEAVE cho các ngày đã duyệt */
     private void markAttendanceLeave(LeaveRequest r) {
         LocalDate d = r.getStartDate();
@@ -168,5 +178,6 @@ public class LeaveService {
             attendanceRepo.save(rec);
             d = d.plusDays(1);
         }
+        monthlyService.refresh(r.getEmployeeId(), r.getStartDate(), r.getEndDate());
     }
 }
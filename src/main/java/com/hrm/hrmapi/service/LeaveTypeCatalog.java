@@ -0,0 +1,52 @@
+// src/main/java/com/hrm/hrmapi/service/LeaveTypeCatalog.java
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.domain.LeaveType;
+import com.hrm.hrmapi.repo.LeaveTypeRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bảng tra code -> LeaveType giữ trong bộ nhớ (ít thay đổi, đọc rất nhiều khi tính lương).
+ * LeaveTypeController gọi invalidate() khi thêm/sửa/xoá loại nghỉ; bảng cũng tự nạp lại sau MAX_AGE.
+ */
+@Component
+@RequiredArgsConstructor
+public class LeaveTypeCatalog {
+
+    private final LeaveTypeRepo leaveTypeRepo;
+
+    // loại nghỉ sửa ở instance khác / trực tiếp trong DB: tối đa chừng này mới thấy
+    private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+    private final ReloadingSnapshot<Map<String, LeaveType>> byCode = new ReloadingSnapshot<>(this::load, MAX_AGE);
+
+    public LeaveType byCode(String code) {
+        if (code == null) return null;
+        return byCode.get().get(code.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /** Loại nghỉ không lương: paid = false; paid chưa set (null) coi là có lương */
+    public boolean isUnpaid(String code) {
+        LeaveType t = byCode(code);
+        return t != null && Boolean.FALSE.equals(t.getPaid());
+    }
+
+    /** Bỏ cache; lần gọi kế tiếp sẽ nạp lại */
+    public void invalidate() {
+        byCode.invalidate();
+    }
+
+    private Map<String, LeaveType> load() {
+        Map<String, LeaveType> m = new HashMap<>();
+        for (var t : leaveTypeRepo.findAll()) {
+            if (t.getCode() != null) m.putIfAbsent(t.getCode().trim().toUpperCase(Locale.ROOT), t);
+        }
+        return Map.copyOf(m);
+    }
+}
@@ -0,0 +1,304 @@
+// src/main/java/com/hrm/hrmapi/service/PayrollFormulaEngine.java
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.payroll.AttendanceSummary;
+import com.hrm.hrmapi.payroll.PayrollComponent;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Biên dịch PayrollComponent.expr (vd "ot_minutes_weekday / 60 * base_hourly * 1.5") thành cây evaluator
+ * dùng lại được: tên biến được đổi sang chỉ số slot lúc compile, hằng số được gộp sẵn,
+ * nên mỗi lần tính chỉ còn các phép BigDecimal.
+ * Bản compile được cache theo id + version của component.
+ *
+ * Cú pháp: số, biến, + - * /, đổi dấu, ngoặc, min(a, b), max(a, b), round(x, scale).
+ * Phép chia lấy scale 2, HALF_UP (giống cách tính OT trước đây).
+ */
+@Component
+public class PayrollFormulaEngine {
+
+    /** Biến dùng được trong expr, theo thứ tự slot */
+    public static final List<String> VARIABLES = List.of(
+            "working_days_paid",
+            "working_days_in_cycle",
+            "unpaid_leave_days",
+            "late_minutes",
+            "early_leave_minutes",
+            "ot_minutes_weekday",
+            "ot_minutes_weekend",
+            "ot_minutes_holiday",
+            "base_salary",
+            "base_hourly",
+            "base_salary_prorated"
+    );
+
+    static final int DIV_SCALE = 2;
+    static final int MAX_ROUND_SCALE = 12;
+
+    private final ConcurrentHashMap<String, Compiled> cache = new ConcurrentHashMap<>();
+
+    /** Formula đã biên dịch */
+    @FunctionalInterface
+    public interface Formula {
+        BigDecimal eval(BigDecimal[] vars);
+    }
+
+    private record Compiled(String expr, Formula formula) {}
+
+    /** Lấy bản compile của component (cache theo id + version; expr đổi mà không tăng version thì compile lại) */
+    public Formula compile(PayrollComponent c) {
+        String key = c.getId() + "@" + (c.getVersion() == null ? 0 : c.getVersion());
+        Compiled hit = cache.get(key);
+        if (hit != null && hit.expr().equals(c.getExpr())) return hit.formula();
+
+        Formula f = compile(c.getExpr());
+        cache.put(key, new Compiled(c.getExpr(), f));
+        return f;
+    }
+
+    /** Biên dịch 1 biểu thức; lỗi cú pháp / biến lạ -> IllegalArgumentException */
+    public Formula compile(String expr) {
+        if (expr == null || expr.isBlank()) throw new IllegalArgumentException("Công thức rỗng");
+        try {
+            return new Parser(expr).parse();
+        } catch (ArithmeticException e) {
+            // gộp hằng số lúc compile (vd "1 / 0") -> coi là công thức sai, không để lọt ArithmeticException
+            throw new IllegalArgumentException("Không tính được hằng số trong công thức: " + expr + " (" + e.getMessage() + ")", e);
+        }
+    }
+
+    /** Gán giá trị các biến từ summary theo đúng thứ tự VARIABLES; tạo 1 lần cho mỗi payslip */
+    public BigDecimal[] bind(AttendanceSummary s) {
+        BigDecimal prorated = s.getBaseSalary()
+                .multiply(BigDecimal.valueOf(s.getWorkingDaysPaid()))
+                .divide(BigDecimal.valueOf(s.getWorkingDaysInCycle()), 0, RoundingMode.HALF_UP);
+        return new BigDecimal[]{
+                BigDecimal.valueOf(s.getWorkingDaysPaid()),
+                BigDecimal.valueOf(s.getWorkingDaysInCycle()),
+                BigDecimal.valueOf(s.getUnpaidLeaveDays()),
+                BigDecimal.valueOf(s.getLateMinutes()),
+                BigDecimal.valueOf(s.getEarlyLeaveMinutes()),
+                BigDecimal.valueOf(s.getOtMinutesWeekday()),
+                BigDecimal.valueOf(s.getOtMinutesWeekend()),
+                BigDecimal.valueOf(s.getOtMinutesHoliday()),
+                s.getBaseSalary(),
+                s.getBaseHourly(),
+                prorated
+        };
+    }
+
+    // ---------------------------------------------------------
+    // parser: expr := term (('+'|'-') term)* ; term := unary (('*'|'/') unary)* ;
+    //         unary := '-' unary | primary ; primary := number | name | name '(' args ')' | '(' expr ')'
+    // ---------------------------------------------------------
+
+    private static final class Parser {
+        private final String src;
+        private int pos;
+
+        Parser(String src) {
+            this.src = src;
+        }
+
+        Formula parse() {
+            Node n = expr();
+            skipWs();
+            if (pos < src.length()) throw error("Ký tự không hợp lệ '" + src.charAt(pos) + "'");
+            return n.fold()::eval;
+        }
+
+        private Node expr() {
+            Node left = term();
+            while (true) {
+                if (eat('+')) left = new Bin('+', left, term());
+                else if (eat('-')) left = new Bin('-', left, term());
+                else return left;
+            }
+        }
+
+        private Node term() {
+            Node left = unary();
+            while (true) {
+                if (eat('*')) left = new Bin('*', left, unary());
+                else if (eat('/')) left = new Bin('/', left, unary());
+                else return left;
+            }
+        }
+
+        private Node unary() {
+            if (eat('-')) return new Neg(unary());
+            if (eat('+')) return unary();
+            return primary();
+        }
+
+        private Node primary() {
+            skipWs();
+            if (eat('(')) {
+                Node n = expr();
+                expect(')');
+                return n;
+            }
+            if (pos >= src.length()) throw error("Thiếu toán hạng");
+
+            char ch = src.charAt(pos);
+            if (Character.isDigit(ch) || ch == '.') {
+                int start = pos;
+                while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) pos++;
+                try {
+                    return new Const(new BigDecimal(src.substring(start, pos)));
+                } catch (NumberFormatException e) {
+                    pos = start;
+                    throw error("Số không hợp lệ");
+                }
+            }
+            if (Character.isLetter(ch) || ch == '_') {
+                int start = pos;
+                while (pos < src.length() && (Character.isLetterOrDigit(src.charAt(pos)) || src.charAt(pos) == '_')) pos++;
+                String name = src.substring(start, pos).toLowerCase();
+                if (eat('(')) return call(name, start);
+
+                int slot = VARIABLES.indexOf(name);
+                if (slot < 0) {
+                    pos = start;
+                    throw error("Biến không tồn tại '" + name + "'");
+                }
+                return new Var(slot);
+            }
+            throw error("Ký tự không hợp lệ '" + ch + "'");
+        }
+
+        private Node call(String name, int at) {
+            Node a = expr();
+            expect(',');
+            Node b = expr();
+            expect(')');
+            return switch (name) {
+                case "min", "max" -> new Call(name, a, b);
+                case "round" -> {
+                    if (!(b.fold() instanceof Const c)) {
+                        pos = at;
+                        throw error("round(x, scale): scale phải là hằng số");
+                    }
+                    yield new Round(a, roundScale(c.value, at));
+                }
+                default -> {
+                    pos = at;
+                    throw error("Hàm không tồn tại '" + name + "'");
+                }
+            };
+        }
+
+        /** scale của round phải là số nguyên trong [-MAX_ROUND_SCALE, MAX_ROUND_SCALE] (âm = làm tròn tới hàng chục/trăm/nghìn) */
+        private int roundScale(BigDecimal v, int at) {
+            int scale;
+            try {
+                scale = v.intValueExact();
+            } catch (ArithmeticException e) {
+                pos = at;
+                throw error("round(x, scale): scale phải là số nguyên, nhận " + v.toPlainString());
+            }
+            if (Math.abs(scale) > MAX_ROUND_SCALE) {
+                pos = at;
+                throw error("round(x, scale): scale phải trong khoảng -" + MAX_ROUND_SCALE + ".." + MAX_ROUND_SCALE);
+            }
+            return scale;
+        }
+
+        private void skipWs() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+        }
+
+        private boolean eat(char c) {
+            skipWs();
+            if (pos < src.length() && src.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!eat(c)) throw error("Thiếu '" + c + "'");
+        }
+
+        private IllegalArgumentException error(String msg) {
+            return new IllegalArgumentException(msg + " tại vị trí " + pos + " trong công thức: " + src);
+        }
+    }
+
+    // ---------------------------------------------------------
+    // nodes
+    // ---------------------------------------------------------
+
+    private sealed interface Node permits Const, Var, Neg, Bin, Call, Round {
+        BigDecimal eval(BigDecimal[] vars);
+
+        /** Gộp hằng số: nhánh không phụ thuộc biến được tính sẵn lúc compile */
+        Node fold();
+    }
+
+    private record Const(BigDecimal value) implements Node {
+        public BigDecimal eval(BigDecimal[] vars) { return value; }
+        public Node fold() { return this; }
+    }
+
+    private record Var(int slot) implements Node {
+        public BigDecimal eval(BigDecimal[] vars) { return vars[slot]; }
+        public Node fold() { return this; }
+    }
+
+    private record Neg(Node x) implements Node {
+        public BigDecimal eval(BigDecimal[] vars) { return x.eval(vars).negate(); }
+
+        public Node fold() {
+            Node f = x.fold();
+            return f instanceof Const c ? new Const(c.value.negate()) : new Neg(f);
+        }
+    }
+
+    private record Bin(char op, Node l, Node r) implements Node {
+        public BigDecimal eval(BigDecimal[] vars) {
+            BigDecimal a = l.eval(vars), b = r.eval(vars);
+            return switch (op) {
+                case '+' -> a.add(b);
+                case '-' -> a.subtract(b);
+                case '*' -> a.multiply(b);
+                default -> a.divide(b, DIV_SCALE, RoundingMode.HALF_UP);
+            };
+        }
+
+        public Node fold() {
+            Node fl = l.fold(), fr = r.fold();
+            Node n = new Bin(op, fl, fr);
+            return (fl instanceof Const && fr instanceof Const) ? new Const(n.eval(null)) : n;
+        }
+    }
+
+    private record Call(String fn, Node a, Node b) implements Node {
+        public BigDecimal eval(BigDecimal[] vars) {
+            BigDecimal x = a.eval(vars), y = b.eval(vars);
+            return "min".equals(fn) ? x.min(y) : x.max(y);
+        }
+
+        public Node fold() {
+            Node fa = a.fold(), fb = b.fold();
+            Node n = new Call(fn, fa, fb);
+            return (fa instanceof Const && fb instanceof Const) ? new Const(n.eval(null)) : n;
+        }
+    }
+
+    private record Round(Node x, int scale) implements Node {
+        public BigDecimal eval(BigDecimal[] vars) { return x.eval(vars).setScale(scale, RoundingMode.HALF_UP); }
+
+        public Node fold() {
+            Node f = x.fold();
+            Node n = new Round(f, scale);
+            return f instanceof Const ? new Const(n.eval(null)) : n;
+        }
+    }
+}
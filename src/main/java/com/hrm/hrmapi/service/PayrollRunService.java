@@ -0,0 +1,163 @@
+// src/main/java/com/hrm/hrmapi/service/PayrollRunService.java
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.domain.Contract;
+import com.hrm.hrmapi.domain.LeaveRequest;
+import com.hrm.hrmapi.payroll.PayrollCycle;
+import com.hrm.hrmapi.payroll.Payslip;
+import com.hrm.hrmapi.repo.AttendanceRepo;
+import com.hrm.hrmapi.repo.ContractRepo;
+import com.hrm.hrmapi.repo.EmployeeRepo;
+import com.hrm.hrmapi.repo.LeaveRequestRepo;
+import com.hrm.hrmapi.repo.payroll.PayrollCycleRepo;
+import com.hrm.hrmapi.repo.payroll.PayslipRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Payroll run cho cả công ty theo 3 pha:
+ * fetch – nạp toàn bộ input của kỳ bằng vài query bulk (HĐ, chấm công – từ attendance_monthly nếu kỳ trọn tháng,
+ *         đơn nghỉ, component lương;
+ *         ngày lễ / loại nghỉ đã cache ở HolidayCalendar / LeaveTypeCatalog),
+ * compute – tính payslip song song trên ForkJoinPool riêng (không I/O),
+ * write – bulk upsert payslip theo cycleId + employeeId.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PayrollRunService {
+
+    private final PayrollCycleRepo cycleRepo;
+    private final PayslipRepo payslipRepo;
+    private final ContractRepo contractRepo;
+    private final EmployeeRepo employeeRepo;
+    private final AttendanceRepo attendanceRepo;
+    private final LeaveRequestRepo leaveRequestRepo;
+    private final AttendanceSummaryService summaryService;
+    private final PayslipCalculator calculator;
+    private final HolidayCalendar holidayCalendar;
+    private final AttendanceMonthlyService monthlyService;
+
+    // 0 = số core
+    @Value("${hrm.payroll.run.parallelism:0}")
+    private int parallelism;
+
+    @Value("${hrm.payroll.run.write-batch-size:1000}")
+    private int writeBatchSize;
+
+    private ForkJoinPool pool;
+
+    public record RunReport(String cycleId, int employees, int calculated, int skipped, int failed,
+                            List<String> errors, long fetchMs, long computeMs, long writeMs, long totalMs) {}
+
+    @PostConstruct
+    public void init() {
+        int p = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(p);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public RunReport run(String cycleId) {
+        long t0 = System.nanoTime();
+        PayrollCycle cycle = cycleRepo.findById(cycleId).orElseThrow();
+        LocalDate start = cycle.getStartDate(), end = cycle.getEndDate();
+
+        // ===== fetch =====
+        Set<String> employeeIds = employeeRepo.findAllIds();
+
+        // HĐ active tại ngày cuối kỳ quyết định ai được tính; lương lấy theo HĐ active giữa kỳ
+        Map<String, Contract> atEnd = latestByEmployee(contractRepo.findAllActiveAt(end));
+        Map<String, Contract> atMid = latestByEmployee(contractRepo.findAllActiveAt(AttendanceSummaryService.midOf(start, end)));
+
+        List<String> eligible = atEnd.keySet().stream().filter(employeeIds::contains).sorted().toList();
+        int skipped = employeeIds.size() - eligible.size();
+
+        Map<String, AttendanceSummaryService.AttendanceTotals> totals = new HashMap<>(eligible.size() * 2);
+        for (String id : eligible) totals.put(id, new AttendanceSummaryService.AttendanceTotals());
+        // kỳ trùng ranh giới tháng -> đọc attendance_monthly (O(nhân viên)), còn lại quét record gốc
+        var monthly = monthlyService.totals(null, start, end);
+        if (monthly != null) {
+            monthly.forEach((id, t) -> totals.computeIfPresent(id, (k, v) -> t));
+        } else {
+            try (var stream = attendanceRepo.streamByDateBetween(start, end, null)) {
+                stream.forEach(r -> {
+                    var t = totals.get(r.getEmployeeId());
+                    if (t != null) t.add(r, holidayCalendar);
+                });
+            }
+        }
+
+        Map<String, List<LeaveRequest>> leavesByEmployee = new HashMap<>();
+        for (var lr : leaveRequestRepo.findByStatusAndStartDateLessThanEqualAndEndDateGreaterThanEqual("APPROVED", end, start)) {
+            leavesByEmployee.computeIfAbsent(lr.getEmployeeId(), k -> new ArrayList<>()).add(lr);
+        }
+
+        var plan = calculator.plan();
+        long t1 = System.nanoTime();
+
+        // ===== compute =====
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        List<Payslip> payslips = pool.submit(() -> eligible.parallelStream()
+                .map(id -> {
+                    try {
+                        Contract contract = atMid.get(id);
+                        if (contract == null) throw new IllegalStateException("Không tìm thấy hợp đồng đang hiệu lực");
+                        var sum = summaryService.compute(contract, totals.get(id),
+                                leavesByEmployee.getOrDefault(id, List.of()), start, end);
+                        return calculator.build(cycle, id, sum, plan);
+                    } catch (Exception ex) {
+                        errors.add(id + ": " + ex.getMessage());
+                        return null;
+                    }
+                })
+                .filter(Objects::nonNull)
+                .toList()
+        ).join();
+        long t2 = System.nanoTime();
+
+        // ===== write =====
+        for (int i = 0; i < payslips.size(); i += writeBatchSize) {
+            payslipRepo.bulkUpsert(payslips.subList(i, Math.min(i + writeBatchSize, payslips.size())));
+        }
+        long t3 = System.nanoTime();
+
+        var report = new RunReport(cycleId, employeeIds.size(), payslips.size(), skipped, errors.size(),
+                errors.stream().sorted().toList(),
+                ms(t1 - t0), ms(t2 - t1), ms(t3 - t2), ms(t3 - t0));
+        log.info("Payroll run {}: {} calculated, {} skipped, {} failed (fetch {} ms, compute {} ms, write {} ms)",
+                cycleId, report.calculated(), report.skipped(), report.failed(),
+                report.fetchMs(), report.computeMs(), report.writeMs());
+        return report;
+    }
+
+    /** Nhiều HĐ active cùng lúc thì lấy version cao nhất (giống ContractRepo.findActiveByEmployee) */
+    private static Map<String, Contract> latestByEmployee(List<Contract> contracts) {
+        Map<String, Contract> map = new HashMap<>();
+        for (var c : contracts) {
+            map.merge(c.getEmployeeId(), c, (a, b) -> b.getVersion() > a.getVersion() ? b : a);
+        }
+        return map;
+    }
+
+    private static long ms(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,82 @@
+// src/main/java/com/hrm/hrmapi/service/PayslipCalculator.java
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.error.BusinessException;
+import com.hrm.hrmapi.payroll.AttendanceSummary;
+import com.hrm.hrmapi.payroll.PayrollComponent;
+import com.hrm.hrmapi.payroll.PayrollCycle;
+import com.hrm.hrmapi.payroll.Payslip;
+import com.hrm.hrmapi.repo.payroll.PayrollComponentRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hrm.hrmapi.payroll.PayrollEnums.CalcType;
+import static com.hrm.hrmapi.payroll.PayrollEnums.ComponentKind;
+
+/**
+ * Dựng payslip từ AttendanceSummary theo các PayrollComponent đang active (thứ tự priority).
+ * Component FORMULA tính bằng PayrollFormulaEngine; FIXED tạm để 0 (sẽ có API thêm phụ cấp/bonus).
+ * build() thuần tính toán, không I/O – dùng chung cho tính lẻ 1 nhân viên và payroll run song song.
+ */
+@Component
+@RequiredArgsConstructor
+public class PayslipCalculator {
+
+    private final PayrollComponentRepo componentRepo;
+    private final PayrollFormulaEngine formulaEngine;
+
+    /** 1 dòng payslip đã compile sẵn; formula = null với component FIXED */
+    public record Line(PayrollComponent component, PayrollFormulaEngine.Formula formula) {}
+
+    /** Nạp component active và compile công thức (1 lần cho mỗi lượt tính) */
+    public List<Line> plan() {
+        List<Line> lines = new ArrayList<>();
+        for (var c : componentRepo.findAllByActiveTrueOrderByPriorityAsc()) {
+            if (c.getCalcType() != CalcType.FORMULA) {
+                lines.add(new Line(c, null));
+                continue;
+            }
+            try {
+                lines.add(new Line(c, formulaEngine.compile(c)));
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("PAYROLL_FORMULA_INVALID",
+                        "Công thức của " + c.getId() + " không hợp lệ: " + e.getMessage(),
+                        HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+        return lines;
+    }
+
+    public Payslip build(PayrollCycle cycle, String employeeId, AttendanceSummary sum, List<Line> plan) {
+        BigDecimal[] vars = formulaEngine.bind(sum);
+
+        var items = new ArrayList<Payslip.Item>(plan.size());
+        BigDecimal gross = BigDecimal.ZERO, deductions = BigDecimal.ZERO;
+        for (var line : plan) {
+            var c = line.component();
+            BigDecimal amount = line.formula() == null ? BigDecimal.ZERO : line.formula().eval(vars);
+            ComponentKind kind = c.getKind() == null ? ComponentKind.EARNING : c.getKind();
+            items.add(new Payslip.Item(c.getId(), c.getLabel(), kind.name(), amount));
+
+            if (kind == ComponentKind.EARNING) gross = gross.add(amount);
+            else deductions = deductions.add(amount);
+        }
+
+        return Payslip.builder()
+                .cycleId(cycle.getId())
+                .employeeId(employeeId)
+                .items(items)
+                .gross(gross)
+                .deductions(deductions)
+                .net(gross.subtract(deductions))
+                .status("CALCULATED")
+                .generatedAt(cycle.getEndDate().atStartOfDay(ZoneId.systemDefault()).toInstant())
+                .build();
+    }
+}
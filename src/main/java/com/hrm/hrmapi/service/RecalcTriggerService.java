@@ -0,0 +1,213 @@
+// src/main/java/com/hrm/hrmapi/service/RecalcTriggerService.java
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.config.InstanceId;
+import com.hrm.hrmapi.domain.RecalcTrigger;
+import com.hrm.hrmapi.payroll.PayrollCycle;
+import com.hrm.hrmapi.payroll.PayrollEnums.CycleStatus;
+import com.hrm.hrmapi.repo.AttendanceRepo;
+import com.hrm.hrmapi.repo.RecalcTriggerRepo;
+import com.hrm.hrmapi.repo.payroll.PayrollCycleRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recalc nền khi dữ liệu rule thay đổi (WorkSchedule, Holiday):
+ * tính khoảng ngày bị ảnh hưởng, lưu 1 trigger vào recalc_triggers, worker đơn luồng chạy recalc theo lô
+ * và nghỉ throttle-ms giữa các lô để không chiếm hết Mongo/CPU của API.
+ * Trigger được claim kèm owner + heartbeat: restart (hoặc instance chết) thì trigger QUEUED / RUNNING quá lease
+ * được nhận lại lúc khởi động và chạy lại từ đầu (recalc idempotent, chỉ ghi record đổi giá trị).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecalcTriggerService {
+
+    private final AttendanceRecalcService recalcService;
+    private final AttendanceRepo attendanceRepo;
+    private final RecalcTriggerRepo triggerRepo;
+    private final PayrollCycleRepo cycleRepo;
+    private final InstanceId instanceId;
+
+    @Value("${hrm.attendance.recalc.throttle-ms:50}")
+    private long throttleMs;
+
+    // RUNNING mà không có heartbeat quá lâu -> coi như instance chạy nó đã chết
+    @Value("${hrm.jobs.lease-seconds:300}")
+    private long leaseSeconds;
+
+    // trigger đã xong giữ lại bao lâu để xem trạng thái
+    private static final Duration HISTORY = Duration.ofDays(30);
+
+    private ExecutorService worker;
+
+    @PostConstruct
+    public void init() {
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "attendance-recalc-trigger");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /** Khởi động: chạy tiếp các trigger còn chờ / bị ngắt giữa chừng */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        triggerRepo.deleteByFinishedAtBefore(Instant.now().minus(HISTORY));
+        var ids = triggerRepo.findResumable(staleBefore());
+        if (!ids.isEmpty()) log.info("Resuming {} pending attendance recalc trigger(s)", ids.size());
+        for (String id : ids) worker.execute(() -> run(id));
+    }
+
+    /**
+     * Schedule đổi: recalc từ ngày đầu của kỳ lương còn mở (DRAFT) sớm nhất tới hôm nay.
+     * Kỳ LOCKED/PAID đã chốt payslip nên giữ nguyên theo rule cũ; tháng hiện tại luôn được tính
+     * (kỳ lương của nó có thể chưa được tạo).
+     */
+    @EventListener
+    public void onScheduleChanged(ScheduleChangedEvent e) {
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.withDayOfMonth(1);
+        for (var c : cycleRepo.findByStatus(CycleStatus.DRAFT)) {
+            if (c.getStartDate() != null && c.getStartDate().isBefore(from)) from = c.getStartDate();
+        }
+        enqueue("SCHEDULE", "WorkSchedule v" + e.current().getVersion(),
+                List.of(new RecalcTrigger.Range(from, to)), List.of());
+    }
+
+    /**
+     * Holiday đổi: chỉ recalc các ngày thuộc kỳ lương còn mở (DRAFT) hoặc từ tháng hiện tại trở đi,
+     * và không bao giờ đụng ngày nằm trong kỳ LOCKED/PAID (payslip đã phát hành giữ theo lịch cũ).
+     * Ngày bị bỏ qua được log và ghi vào trigger.skippedDates.
+     */
+    @EventListener
+    public void onHolidayChanged(HolidayChangedEvent e) {
+        var dates = new TreeSet<>(e.dates());
+        var draft = cycleRepo.findByStatus(CycleStatus.DRAFT);
+        var settled = new ArrayList<>(cycleRepo.findByStatus(CycleStatus.LOCKED));
+        settled.addAll(cycleRepo.findByStatus(CycleStatus.PAID));
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+
+        List<RecalcTrigger.Range> ranges = new ArrayList<>();
+        List<LocalDate> skipped = new ArrayList<>();
+        for (var d : dates) {
+            boolean open = !d.isBefore(currentMonth) || draft.stream().anyMatch(c -> covers(c, d));
+            if (open && settled.stream().noneMatch(c -> covers(c, d))) ranges.add(new RecalcTrigger.Range(d, d));
+            else skipped.add(d);
+        }
+        if (!skipped.isEmpty()) {
+            log.warn("Holiday {}: not recalculating {} (outside open payroll cycles)", e.action(), skipped);
+        }
+        enqueue("HOLIDAY", "Holiday " + e.action() + " " + dates, ranges, skipped);
+    }
+
+    /** Trạng thái các trigger gần đây (mới nhất trước) */
+    public List<RecalcTrigger> statuses() {
+        return triggerRepo.findTop50ByOrderByCreatedAtDesc();
+    }
+
+    // ---------------------------------------------------------
+    // internals
+    // ---------------------------------------------------------
+
+    private void enqueue(String source, String description, List<RecalcTrigger.Range> ranges, List<LocalDate> skipped) {
+        Instant now = Instant.now();
+        var b = RecalcTrigger.builder()
+                .source(source)
+                .description(description)
+                .ranges(ranges)
+                .skippedDates(skipped)
+                .createdAt(now);
+        if (ranges.isEmpty()) {
+            // mọi ngày đều bị bỏ qua: vẫn lưu để /recalc/triggers thấy được, không cần chạy
+            triggerRepo.save(b.status("DONE").finishedAt(now).build());
+            return;
+        }
+        var t = triggerRepo.save(b
+                .status("QUEUED")
+                .pending(ranges.stream().mapToLong(r -> attendanceRepo.countByDateRange(r.getFrom(), r.getTo())).sum())
+                .build());
+        worker.execute(() -> run(t.getId()));
+    }
+
+    private static boolean covers(PayrollCycle c, LocalDate d) {
+        return c.getStartDate() != null && c.getEndDate() != null
+                && !d.isBefore(c.getStartDate()) && !d.isAfter(c.getEndDate());
+    }
+
+    private void run(String id) {
+        var claimed = triggerRepo.claim(id, instanceId.get(), staleBefore());
+        if (claimed.isEmpty()) return;   // instance khác đã nhận
+        var t = claimed.get();
+
+        AtomicLong processed = new AtomicLong(), changed = new AtomicLong(), pending = new AtomicLong(t.getPending());
+        try {
+            for (var r : t.getRanges()) {
+                recalcService.recalc(r.getFrom(), r.getTo(), null, (scanned, diff) -> {
+                    processed.addAndGet(scanned);
+                    changed.addAndGet(diff);
+                    pending.updateAndGet(p -> Math.max(0, p - scanned));
+                    triggerRepo.progress(t.getId(), instanceId.get(), processed.get(), changed.get(), pending.get());
+                    throttle();
+                });
+            }
+            t.setPending(0);
+            t.setStatus("DONE");
+        } catch (Exception ex) {
+            if (worker.isShutdown()) {
+                // app đang tắt: trả trigger về hàng đợi để lần khởi động sau (hoặc instance khác) chạy lại
+                log.info("Recalc trigger {} interrupted by shutdown, requeued", t.getId());
+                t.setStatus("QUEUED");
+                t.setOwner(null);
+                t.setHeartbeatAt(null);
+                t.setProcessed(processed.get());
+                t.setChanged(changed.get());
+                triggerRepo.save(t);
+                return;
+            }
+            log.warn("Recalc trigger {} ({}) failed", t.getId(), t.getDescription(), ex);
+            t.setError(ex.getMessage());
+            t.setStatus("FAILED");
+        }
+        t.setProcessed(processed.get());
+        t.setChanged(changed.get());
+        t.setFinishedAt(Instant.now());
+        triggerRepo.save(t);
+    }
+
+    private Instant staleBefore() {
+        return Instant.now().minusSeconds(leaseSeconds);
+    }
+
+    private void throttle() {
+        if (throttleMs <= 0) return;
+        try {
+            Thread.sleep(throttleMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recalc interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+// src/main/java/com/hrm/hrmapi/service/ReloadingSnapshot.java
+package com.hrm.hrmapi.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Giá trị nạp lười từ DB, giữ trong bộ nhớ tới khi invalidate() hoặc quá maxAge.
+ * Mỗi bản nạp gắn generation lúc bắt đầu nạp: invalidate() xảy ra trong lúc đang nạp thì bản đó
+ * không được dùng lại (không "nuốt" mất lần invalidate). maxAge là lưới an toàn cho thay đổi
+ * không đi qua invalidate() (instance khác, sửa tay trong DB).
+ */
+final class ReloadingSnapshot<T> {
+
+    private record Loaded<T>(T value, long generation, long loadedAtNanos) {}
+
+    private final Supplier<T> loader;
+    private final long maxAgeNanos;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Loaded<T> current;
+
+    ReloadingSnapshot(Supplier<T> loader, Duration maxAge) {
+        this.loader = loader;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    T get() {
+        Loaded<T> c = current;
+        if (usable(c)) return c.value();
+        return reload();
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+        current = null;
+    }
+
+    private synchronized T reload() {
+        Loaded<T> c = current;
+        if (usable(c)) return c.value();
+
+        long gen = generation.get();
+        T value = loader.get();
+        // chỉ publish nếu không có invalidate nào trong lúc nạp; caller hiện tại vẫn dùng bản vừa nạp
+        if (generation.get() == gen) current = new Loaded<>(value, gen, System.nanoTime());
+        return value;
+    }
+
+    private boolean usable(Loaded<T> c) {
+        return c != null
+                && c.generation() == generation.get()
+                && System.nanoTime() - c.loadedAtNanos() < maxAgeNanos;
+    }
+}
@@ -0,0 +1,278 @@
+// src/main/java/com/hrm/hrmapi/service/ReportCache.java
+package com.hrm.hrmapi.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Cache file báo cáo đã render (CSV/PDF) trên đĩa local, khoá (loại, tháng, phòng ban, định dạng).
+ * Lần đầu: bản render được ghi song song ra response và file tạm, xong mới đưa vào cache (ETag = SHA-256 nội dung).
+ * Giới hạn tổng dung lượng theo LRU. Bị xoá khi có ReportDataChangedEvent của tháng / phòng ban tương ứng;
+ * bản render đang chạy mà tháng của nó bị invalidate giữa chừng thì không được lưu.
+ * Event chỉ đi trong 1 JVM: dữ liệu sửa qua instance khác (hoặc trực tiếp trong DB) không xoá được cache ở đây,
+ * nên mỗi bản chỉ sống tối đa max-age-seconds rồi render lại.
+ * Index chỉ nằm trong memory nên thư mục được dọn lúc khởi động.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportCache {
+
+    @Value("${hrm.report.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hrm.report.cache.dir:cache/reports}")
+    private String dir;
+
+    @Value("${hrm.report.cache.max-bytes:536870912}")
+    private long maxBytes;
+
+    @Value("${hrm.report.cache.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    public record Key(String type, String month, String department, String format) {
+        public Key {
+            department = department == null ? "" : department.trim();
+        }
+
+        String id() {
+            return type + "|" + month + "|" + department + "|" + format;
+        }
+    }
+
+    public record Entry(Key key, Path file, long size, String etag, Instant createdAt) {
+        /** Mở file để trả về; null nếu file vừa bị evict */
+        public InputStream open() throws IOException {
+            try {
+                return Files.newInputStream(file);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+    }
+
+    private Path root;
+
+    // access-order -> phần tử đầu là lâu chưa dùng nhất; guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    // tăng mỗi khi invalidate tháng đó (allGeneration: invalidate mọi tháng)
+    private final Map<String, Long> generations = new HashMap<>();
+    private long allGeneration;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Path.of(dir);
+        Files.createDirectories(root);
+        try (Stream<Path> files = Files.list(root)) {
+            files.forEach(ReportCache::deleteQuietly);
+        }
+    }
+
+    public synchronized Entry get(Key key) {
+        if (!enabled) return null;
+        Entry e = entries.get(key.id());
+        if (e != null && e.createdAt().plus(Duration.ofSeconds(maxAgeSeconds)).isBefore(Instant.now())) {
+            remove(e);
+            return null;
+        }
+        return e;
+    }
+
+    /**
+     * Bắt đầu 1 bản render: ghi vào out() (song song ra response + file tạm), gọi commit() khi xong.
+     * close() mà chưa commit (lỗi / client ngắt) thì bỏ file tạm.
+     */
+    public Fill begin(Key key, OutputStream response) throws IOException {
+        long gen, all;
+        synchronized (this) {
+            gen = generations.getOrDefault(key.month(), 0L);
+            all = allGeneration;
+        }
+        return new Fill(key, response, gen, all);
+    }
+
+    /**
+     * Chạy đồng bộ trên luồng ghi nên không được đụng DB: event theo employeeIds không tra phòng ban
+     * mà xoá mọi báo cáo của các tháng đó (báo cáo render lại rẻ hơn 1 query trên mỗi lần ghi chấm công).
+     */
+    @EventListener
+    public void onDataChanged(ReportDataChangedEvent e) {
+        Set<String> departments = null;   // null = mọi phòng ban
+        if (e.employeeIds() == null || e.employeeIds().isEmpty()) {
+            departments = e.departments() == null ? Set.of() : new HashSet<>(e.departments());
+        }
+
+        Set<String> months = null;
+        if (e.months() != null) {
+            months = new HashSet<>();
+            for (YearMonth ym : e.months()) months.add(ym.toString());
+        }
+        invalidate(months, departments);
+    }
+
+    /**
+     * months null = mọi tháng; báo cáo toàn công ty của tháng luôn bị xoá,
+     * báo cáo phòng ban chỉ khi thuộc departments (departments null = mọi phòng ban)
+     */
+    public synchronized void invalidate(Set<String> months, Set<String> departments) {
+        if (months == null) allGeneration++;
+        else for (String m : months) generations.merge(m, 1L, Long::sum);
+
+        var it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            Key k = e.key();
+            if (months != null && !months.contains(k.month())) continue;
+            if (!k.department().isEmpty() && departments != null && !departments.contains(k.department())) continue;
+            it.remove();
+            totalBytes -= e.size();
+            deleteQuietly(e.file());
+        }
+    }
+
+    public final class Fill implements AutoCloseable {
+        private final Key key;
+        private final long generation, allGen;
+        private final Path tmp;
+        private final MessageDigest digest;
+        private final OutputStream file;
+        private final OutputStream out;
+        private long size;
+        private boolean committed;
+
+        private Fill(Key key, OutputStream response, long generation, long allGen) throws IOException {
+            this.key = key;
+            this.generation = generation;
+            this.allGen = allGen;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            if (enabled) {
+                this.tmp = Files.createTempFile(root, "report-", ".tmp");
+                this.file = new DigestOutputStream(Files.newOutputStream(tmp), digest);
+            } else {
+                this.tmp = null;
+                this.file = OutputStream.nullOutputStream();
+            }
+            this.out = new FilterOutputStream(response) {
+                @Override
+                public void write(int b) throws IOException {
+                    response.write(b);
+                    file.write(b);
+                    size++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    response.write(b, off, len);
+                    file.write(b, off, len);
+                    size += len;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try (file) {
+                        response.close();
+                    }
+                }
+            };
+        }
+
+        public OutputStream out() {
+            return out;
+        }
+
+        /** Bản render đã đầy đủ -> đưa vào cache (trừ khi dữ liệu tháng đó vừa đổi) */
+        public void commit() throws IOException {
+            if (tmp == null) return;
+            file.close();
+            String etag = HexFormat.of().formatHex(digest.digest());
+            Path target = root.resolve(HexFormat.of().formatHex(
+                    sha256(key.id().getBytes(StandardCharsets.UTF_8))) + "." + key.format());
+
+            synchronized (ReportCache.this) {
+                if (generation != generations.getOrDefault(key.month(), 0L) || allGen != allGeneration) {
+                    return; // close() xoá file tạm
+                }
+                Entry old = entries.remove(key.id());
+                if (old != null) totalBytes -= old.size();
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                committed = true;
+                entries.put(key.id(), new Entry(key, target, size, etag, Instant.now()));
+                totalBytes += size;
+                evict();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (tmp == null || committed) return;
+            file.close();
+            deleteQuietly(tmp);
+        }
+    }
+
+    private void remove(Entry e) {
+        if (entries.remove(e.key().id(), e)) {
+            totalBytes -= e.size();
+            deleteQuietly(e.file());
+        }
+    }
+
+    private void evict() {
+        var it = entries.values().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Entry e = it.next();
+            it.remove();
+            totalBytes -= e.size();
+            deleteQuietly(e.file());
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            log.warn("Could not delete cached report {}", p, e);
+        }
+    }
+}
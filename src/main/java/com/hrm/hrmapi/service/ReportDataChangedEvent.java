@@ -0,0 +1,12 @@
+// src/main/java/com/hrm/hrmapi/service/ReportDataChangedEvent.java
+package com.hrm.hrmapi.service;
+
+import java.time.YearMonth;
+import java.util.Set;
+
+/**
+ * Phát ra khi dữ liệu nguồn của báo cáo đổi (chấm công, đơn nghỉ, tên/phòng ban nhân viên).
+ * months null = mọi tháng; phòng ban bị ảnh hưởng = departments, hoặc mọi phòng ban nếu có employeeIds
+ * (ReportCache không tra phòng ban của nhân viên trên luồng ghi). Báo cáo toàn công ty của các tháng đó luôn bị ảnh hưởng.
+ */
+public record ReportDataChangedEvent(Set<YearMonth> months, Set<String> employeeIds, Set<String> departments) {}
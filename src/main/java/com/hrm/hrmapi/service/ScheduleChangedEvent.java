@@ -0,0 +1,7 @@
+// src/main/java/com/hrm/hrmapi/service/ScheduleChangedEvent.java
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.domain.WorkSchedule;
+
+/** Phát ra khi WorkScheduleService.upsert đổi giờ chuẩn/grace/OT (previous có thể null) */
+public record ScheduleChangedEvent(WorkSchedule previous, WorkSchedule current) {}
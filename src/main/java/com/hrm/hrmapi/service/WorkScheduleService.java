@@ -3,31 +3,48 @@ package com.hrm.hrmapi.service;
 import com.hrm.hrmapi.domain.WorkSchedule;
 import com.hrm.hrmapi.repo.WorkScheduleRepo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.DayOfWeek;
 import java.time.LocalTime;
 import java.time.Instant;
 import java.util.EnumSet;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class WorkScheduleService {
     private final WorkScheduleRepo repo;
+    private final ApplicationEventPublisher events;
+
+    private static final int MAX_UPSERT_ATTEMPTS = 5;
+
+    // schedule đang dùng; hot path (import, patch, recalc) chỉ đọc reference này
+    private volatile WorkSchedule current;
 
     /**
      * Lấy schedule hiện tại, hoặc tạo default nếu chưa có
      */
     public WorkSchedule getOrDefault() {
-        return repo.findAll().stream()
-                .findFirst()
-                .orElseGet(this::createDefault);
+        WorkSchedule s = current;
+        return s != null ? s : load();
+    }
+
+    /** Version của schedule đang cache (0 nếu schedule cũ chưa có version) */
+    public long currentVersion() {
+        return Objects.requireNonNullElse(getOrDefault().getVersion(), 0L);
     }
 
     /**
-     * Upsert schedule (tạo mới hoặc update existing)
+     * Upsert schedule (tạo mới hoặc update existing).
+     * Version = version trong DB + 1, ghi bằng compare-and-set trên version: 2 instance lưu cùng lúc
+     * không thể ra cùng số version với nội dung khác nhau (bên thua đọc lại và ghi version kế tiếp).
      */
-    public WorkSchedule upsert(WorkSchedule s) {
+    public synchronized WorkSchedule upsert(WorkSchedule s) {
         s.setUpdatedAt(Instant.now());
 
         // Đảm bảo có working days
@@ -48,7 +65,62 @@ public class WorkScheduleService {
         if (s.getOtAfterMinutes() == null) s.setOtAfterMinutes(30);
         if (s.getOtRoundToMinutes() == null) s.setOtRoundToMinutes(15);
 
-        return repo.save(s);
+        // Chỉ giữ 1 schedule: ghi đè document hiện có
+        WorkSchedule existing = null, saved = null;
+        for (int attempt = 0; attempt < MAX_UPSERT_ATTEMPTS && saved == null; attempt++) {
+            existing = repo.findAll().stream().findFirst().orElse(null);
+            if (existing == null) {
+                s.setId(null);
+                s.setVersion(1L);
+                saved = repo.insert(s);
+            } else {
+                s.setId(existing.getId());
+                s.setVersion(Objects.requireNonNullElse(existing.getVersion(), 0L) + 1);
+                if (repo.replaceIfVersion(s, existing.getVersion())) saved = s;
+            }
+        }
+        if (saved == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Work schedule is being updated concurrently, retry");
+        }
+        current = saved;
+
+        // giờ chuẩn/grace/OT đổi -> recalc nền các record bị ảnh hưởng
+        if (existing == null || rulesChanged(existing, saved)) {
+            events.publishEvent(new ScheduleChangedEvent(existing, saved));
+        }
+        return saved;
+    }
+
+    /** So sánh các field applyRules dùng */
+    private static boolean rulesChanged(WorkSchedule a, WorkSchedule b) {
+        return !Objects.equals(a.getStartTime(), b.getStartTime())
+                || !Objects.equals(a.getEndTime(), b.getEndTime())
+                || !Objects.equals(a.getGraceLateMinutes(), b.getGraceLateMinutes())
+                || !Objects.equals(a.getGraceEarlyMinutes(), b.getGraceEarlyMinutes())
+                || !Objects.equals(a.getOtAfterMinutes(), b.getOtAfterMinutes())
+                || !Objects.equals(a.getOtRoundToMinutes(), b.getOtRoundToMinutes());
+    }
+
+    /**
+     * Instance khác có thể đã upsert: định kỳ đọc lại schedule và thay reference nếu version đổi
+     */
+    @Scheduled(fixedDelayString = "${hrm.attendance.schedule.refresh-ms:30000}")
+    public void refreshIfStale() {
+        WorkSchedule cached = current;
+        if (cached == null) return; // chưa ai dùng, lần gọi đầu sẽ tự nạp
+        repo.findAll().stream().findFirst().ifPresent(db -> {
+            // version chỉ tăng (ghi bằng compare-and-set) nên khác version = khác nội dung
+            if (!Objects.equals(db.getVersion(), cached.getVersion())) current = db;
+        });
+    }
+
+    private synchronized WorkSchedule load() {
+        if (current == null) {
+            current = repo.findAll().stream()
+                    .findFirst()
+                    .orElseGet(this::createDefault);
+        }
+        return current;
     }
 
     /**
@@ -72,7 +144,8 @@ public class WorkScheduleService {
                         DayOfWeek.FRIDAY
                 ))
                 .updatedAt(Instant.now())
+                .version(1L)
                 .build();
         return repo.save(def);
     }
-}
\ No newline at end of file
+}
@@ -3,11 +3,17 @@ package com.hrm.hrmapi.web;
 
 import com.hrm.hrmapi.domain.AttendanceBatch;
 import com.hrm.hrmapi.domain.AttendanceRecord;
+import com.hrm.hrmapi.domain.RecalcTrigger;
 import com.hrm.hrmapi.domain.User;
 import com.hrm.hrmapi.domain.WorkSchedule;
+import com.hrm.hrmapi.repo.AttendanceBatchRepo;
 import com.hrm.hrmapi.repo.AttendanceRepo;
 import com.hrm.hrmapi.repo.EmployeeRepo;
+import com.hrm.hrmapi.service.AttendanceImportJobService;
+import com.hrm.hrmapi.service.AttendanceMonthlyService;
+import com.hrm.hrmapi.service.AttendanceRecalcService;
 import com.hrm.hrmapi.service.AttendanceService;
+import com.hrm.hrmapi.service.RecalcTriggerService;
 import com.hrm.hrmapi.service.WorkScheduleService;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.constraints.NotBlank;
@@ -15,15 +21,18 @@ import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.YearMonth;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -34,6 +43,11 @@ import java.util.stream.Collectors;
 public class AttendanceController {
 
     private final AttendanceService service;
+    private final AttendanceImportJobService importJobs;
+    private final AttendanceRecalcService recalcService;
+    private final AttendanceMonthlyService monthlyService;
+    private final RecalcTriggerService recalcTriggers;
+    private final AttendanceBatchRepo batchRepo;
     private final EmployeeRepo employees;
 
     // ---- thêm cho phần rule/quick edit ----
@@ -43,18 +57,33 @@ public class AttendanceController {
     // ---------------------------------------------------------
     // IMPORT CSV
     // ---------------------------------------------------------
-    @Operation(summary = "Import bảng công theo tháng (CSV). Header: employeeCode,fullName,date,checkIn,checkOut,source")
+    @Operation(summary = "Import bảng công theo tháng (CSV). Header: employeeCode,fullName,date,checkIn,checkOut,source. " +
+            "async=true: trả về batch QUEUED ngay (202), theo dõi qua GET /attendance/import/{batchId}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    @ResponseStatus(HttpStatus.CREATED)
-    public AttendanceBatch importCsv(
+    public ResponseEntity<AttendanceBatch> importCsv(
             @RequestParam("month") @NotBlank String month,
             @RequestPart("file") MultipartFile file,
+            @RequestParam(value = "async", defaultValue = "false") boolean async,
             Authentication auth
     ) {
         var me = (User) auth.getPrincipal();
+        if (async) {
+            var batch = importJobs.enqueue(file, YearMonth.parse(month), me.getEmail());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(batch);
+        }
         // đúng thứ tự: file trước, rồi YearMonth
-        return service.importCsv(file, YearMonth.parse(month), me.getEmail());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(service.importCsv(file, YearMonth.parse(month), me.getEmail()));
+    }
+
+    @Operation(summary = "Tiến độ 1 batch import: số dòng đã xử lý, success/failed, ETA")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    @GetMapping("/import/{batchId}")
+    public Map<String, Object> importProgress(@PathVariable String batchId) {
+        var batch = batchRepo.findById(batchId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import batch not found"));
+        return importJobs.progress(batch);
     }
 
     // ---------------------------------------------------------
@@ -101,11 +130,17 @@ public class AttendanceController {
     // =========================================================
 
     // ---- 1) Lấy/ghi cấu hình ca làm việc (ADMIN/MANAGER) ----
-    @Operation(summary = "Lấy cấu hình ca làm việc (giờ chuẩn, grace, OT...)")
+    @Operation(summary = "Lấy cấu hình ca làm việc (giờ chuẩn, grace, OT...). " +
+            "Field version + header ETag/X-Schedule-Version để client phát hiện schedule đã đổi")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
     @GetMapping("/schedule")
-    public WorkSchedule getSchedule() {
-        return scheduleService.getOrDefault();
+    public ResponseEntity<WorkSchedule> getSchedule() {
+        var schedule = scheduleService.getOrDefault();
+        long version = scheduleService.currentVersion();
+        return ResponseEntity.ok()
+                .eTag("\"" + version + "\"")
+                .header("X-Schedule-Version", String.valueOf(version))
+                .body(schedule);
     }
 
     @Operation(summary = "Cập nhật cấu hình ca làm việc (giờ chuẩn, grace, OT...)")
@@ -120,7 +155,7 @@ public class AttendanceController {
     static class PatchAttendanceReq {
         private String checkIn;   // "HH:mm" hoặc null/empty để clear
         private String checkOut;  // "HH:mm" hoặc null/empty để clear
-        private String status;    // PRESENT/LEAVE/ABSENT/WFH...
+        private String status;    // PRESENT/LEAVE/ABSENT/WFH... ; "" = bỏ status đặt tay, để rule tự suy
         private String note;
     }
 
@@ -138,6 +173,10 @@ public class AttendanceController {
         }
         if (StringUtils.hasText(body.getStatus())) {
             rec.setStatus(body.getStatus());
+            rec.setStatusManual(true);      // applyRules / recalc sau này không ghi đè
+        } else if (body.getStatus() != null) {
+            rec.setStatus(null);
+            rec.setStatusManual(null);
         }
         if (body.getNote() != null) {
             rec.setNote(body.getNote());
@@ -145,11 +184,14 @@ public class AttendanceController {
 
         var schedule = scheduleService.getOrDefault();
         service.applyRules(rec, schedule); // tự tính late/early/ot
-        return attendanceRepo.save(rec);
+        var saved = attendanceRepo.save(rec);
+        monthlyService.refresh(List.of(saved));
+        return saved;
     }
 
     // ---- 3) Recalc cả tháng (ADMIN/MANAGER) ----
-    @Operation(summary = "Recalc lại toàn bộ late/early/OT theo tháng (optional: theo employeeId)")
+    @Operation(summary = "Recalc lại toàn bộ late/early/OT theo tháng (optional: theo employeeId). " +
+            "Chạy theo lô song song, chỉ ghi record thay đổi; trả về scanned/changed/unchanged/elapsedMs")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
     @PostMapping("/recalc")
     public Map<String, Object> recalc(
@@ -160,18 +202,36 @@ public class AttendanceController {
         LocalDate from = ym.atDay(1);
         LocalDate to = ym.atEndOfMonth();
 
-        var list = (StringUtils.hasText(employeeId))
-                ? attendanceRepo.findByEmployeeIdAndDateBetween(employeeId, from, to)
-                : attendanceRepo.findByDateBetween(from, to);
+        var res = recalcService.recalc(from, to,
+                StringUtils.hasText(employeeId) ? List.of(employeeId) : null);
+
+        return Map.of(
+                "month", month,
+                "recalculated", res.scanned(),
+                "scanned", res.scanned(),
+                "changed", res.changed(),
+                "unchanged", res.unchanged(),
+                "elapsedMs", res.elapsedMs()
+        );
+    }
 
-        var schedule = scheduleService.getOrDefault();
-        int count = 0;
-        for (var r : list) {
-            service.applyRules(r, schedule);
-            attendanceRepo.save(r);
-            count++;
-        }
-        return Map.of("month", month, "recalculated", count);
+    @Operation(summary = "Tính lại attendance_monthly (tổng theo nhân viên + tháng) từ record gốc; " +
+            "bỏ trống from/to = toàn bộ khoảng tháng có dữ liệu")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    @PostMapping("/monthly/rebuild")
+    public AttendanceMonthlyService.RebuildResult rebuildMonthly(
+            @RequestParam(required = false) String from,   // yyyy-MM
+            @RequestParam(required = false) String to      // yyyy-MM
+    ) {
+        return monthlyService.rebuild(from == null ? null : YearMonth.parse(from),
+                to == null ? null : YearMonth.parse(to));
+    }
+
+    @Operation(summary = "Trạng thái recalc nền do đổi WorkSchedule/Holiday: pending/processed/changed theo từng trigger")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    @GetMapping("/recalc/triggers")
+    public List<RecalcTrigger> recalcTriggers() {
+        return recalcTriggers.statuses();
     }
 
     // ---------------------------------------------------------
@@ -5,6 +5,9 @@ import com.hrm.hrmapi.domain.User;
 import com.hrm.hrmapi.repo.PasswordResetTokenRepo;
 import com.hrm.hrmapi.repo.UserRepo;
 import com.hrm.hrmapi.security.JwtService;
+import com.hrm.hrmapi.security.PasswordHasher;
+import com.hrm.hrmapi.security.PrincipalCache;
+import io.jsonwebtoken.JwtException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -17,12 +20,12 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -33,9 +36,10 @@ import java.util.UUID;
 public class AuthController {
 
     private final UserRepo users;
-    private final PasswordEncoder pe;
+    private final PasswordHasher hasher;
     private final JwtService jwt;
     private final PasswordResetTokenRepo resetTokens;
+    private final PrincipalCache principalCache;
 
     /* ===================== DTOs ===================== */
 
@@ -57,6 +61,10 @@ public class AuthController {
             @Schema(example = "NewStrongPass!234") @NotBlank String newPassword
     ) {}
 
+    public record RefreshRequest(
+            @Schema(example = "eyJhbGciOiJIUzI1NiJ9...") @NotBlank String refreshToken
+    ) {}
+
     public record ChangePwdRequest(
             @Schema(example = "oldPass123") @NotBlank String oldPassword,
             @Schema(example = "NewStrongPass!234") @NotBlank String newPassword
@@ -96,9 +104,11 @@ public class AuthController {
         // chuẩn hóa email để tránh trùng lặp hoa/thường
         String email = body.email().trim().toLowerCase();
 
+        // BCrypt chạy trên pool riêng của PasswordHasher; quá tải -> 503 + Retry-After
         var u = users.findByEmail(email)
-                .filter(x -> pe.matches(body.password(), x.getPasswordHash()))
+                .filter(x -> hasher.matches(body.password(), x.getPasswordHash()))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials"));
+        hasher.rehashIfNeeded(u.getId(), body.password(), u.getPasswordHash());
 
         var userInfo = new MeResponse(
                 u.getId(),
@@ -108,10 +118,38 @@ public class AuthController {
                 u.getEmployeeId()
         );
 
+        var res = new LinkedHashMap<String, Object>();
+        res.put("ok", true);
+        res.put("token", jwt.issue(u));
+        res.put("user", userInfo);
+        if (jwt.claimsMode()) {
+            // access token ngắn hạn -> FE dùng refreshToken gọi /auth/refresh trước khi hết expiresIn
+            res.put("expiresIn", jwt.accessTtlSeconds());
+            res.put("refreshToken", jwt.issueRefresh(u));
+        }
+        return res;
+    }
+
+    @Operation(summary = "Đổi refresh token lấy access token mới (mode claims). Role/employeeId đọc lại từ DB")
+    @ApiResponse(responseCode = "401", description = "Refresh token sai/hết hạn hoặc user không còn")
+    @PostMapping("/refresh")
+    public Map<String, Object> refresh(@Valid @RequestBody RefreshRequest body) {
+        final String userId;
+        try {
+            var claims = jwt.parse(body.refreshToken()).getBody();
+            if (!JwtService.isRefresh(claims)) throw new JwtException("Not a refresh token");
+            userId = claims.getSubject();
+        } catch (JwtException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or expired refresh token");
+        }
+
+        var u = users.findById(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
         return Map.of(
                 "ok", true,
-                "token", jwt.issue(u.getId(), u.getRole().name()),
-                "user", userInfo
+                "token", jwt.issue(u),
+                "expiresIn", jwt.accessTtlSeconds(),
+                "refreshToken", jwt.issueRefresh(u)
         );
     }
 
@@ -120,7 +158,7 @@ public class AuthController {
             content = @Content(schema = @Schema(implementation = MeResponse.class)))
     @GetMapping("/me")
     public MeResponse me(Authentication auth) {
-        var u = (User) auth.getPrincipal();
+        var u = principalCache.full((User) auth.getPrincipal());
         return new MeResponse(
                 u.getId(),
                 u.getEmail(),
@@ -170,8 +208,9 @@ public class AuthController {
         var user = users.findById(prt.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
-        user.setPasswordHash(pe.encode(req.newPassword()));
+        user.setPasswordHash(hasher.encode(req.newPassword()));
         users.save(user);
+        principalCache.invalidate(user.getId());
 
         prt.setUsed(true);
         resetTokens.save(prt);
@@ -183,12 +222,13 @@ public class AuthController {
     @PostMapping("/change-password")
     public Map<String, Object> changePassword(Authentication auth,
                                               @Valid @RequestBody ChangePwdRequest body) {
-        var u = (User) auth.getPrincipal();
-        if (!pe.matches(body.oldPassword(), u.getPasswordHash())) {
+        var u = principalCache.full((User) auth.getPrincipal());
+        if (!hasher.matches(body.oldPassword(), u.getPasswordHash())) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Old password incorrect");
         }
-        u.setPasswordHash(pe.encode(body.newPassword()));
+        u.setPasswordHash(hasher.encode(body.newPassword()));
         users.save(u);
+        principalCache.invalidate(u.getId());
         return Map.of("ok", true, "message", "Password changed");
     }
 }
@@ -4,7 +4,13 @@ package com.hrm.hrmapi.web;
 import com.hrm.hrmapi.domain.Employee;
 import com.hrm.hrmapi.domain.User;
 import com.hrm.hrmapi.repo.ContractRepo;
+import com.hrm.hrmapi.repo.EmployeeCursor;
+import com.hrm.hrmapi.repo.EmployeeListQuery;
 import com.hrm.hrmapi.repo.EmployeeRepo;
+import com.hrm.hrmapi.service.EmployeeImportService;
+import com.hrm.hrmapi.service.EmployeeSearchService;
+import com.hrm.hrmapi.service.ReportDataChangedEvent;
+import com.hrm.hrmapi.web.dto.CreateEmployeeRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,23 +19,30 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.PrintWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @Tag(name = "Employees")
 @RestController
@@ -39,13 +52,19 @@ public class EmployeesController {
 
     private final EmployeeRepo employees;
     private final ContractRepo contracts;
+    private final EmployeeSearchService searchService;
+    private final EmployeeImportService importService;
+    private final ApplicationEventPublisher events;
+
+    // export: flush sau mỗi chừng này dòng để client nhận dữ liệu dần
+    private static final int EXPORT_FLUSH_ROWS = 1000;
 
     /* ===================== LIST (filter + pagination + sort) ===================== */
 
     @Operation(summary = "Danh sách nhân viên (filter + pagination)")
     @GetMapping
     public Map<String, Object> list(
-            @Parameter(description = "Tìm theo code/fullName/phone/position/department (contains, ignore case)")
+            @Parameter(description = "Tìm theo code/fullName/phone/position/department (đầu từ, không phân biệt hoa thường/dấu)")
             @RequestParam(required = false) String search,
             @Parameter(description = "Lọc theo phòng ban (exact, ignore case)")
             @RequestParam(required = false) String department,
@@ -53,90 +72,118 @@ public class EmployeesController {
             @RequestParam(required = false) String status,
             @Parameter(description = "Trang, bắt đầu từ 0") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Kích thước trang") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "VD: fullName,asc | joinDate,desc") @RequestParam(defaultValue = "joinDate,desc") String sort
+            @Parameter(description = "VD: fullName,asc | joinDate,desc") @RequestParam(defaultValue = "joinDate,desc") String sort,
+            @Parameter(description = "Tổng số bản ghi: exact | cached (có thể trễ vài chục giây) | none (chỉ trả hasMore)")
+            @RequestParam(defaultValue = "exact") String total
+    ) {
+        String[] parts = sort.split(",");
+        boolean desc = parts.length > 1 && "desc".equalsIgnoreCase(parts[1].trim());
+
+        var query = new EmployeeListQuery(search, department, status, parts[0].trim(), desc,
+                Math.max(page, 0), Math.min(Math.max(size, 1), 200), totalMode(total));
+        var result = employees.list(query);
+
+        var res = new LinkedHashMap<String, Object>();
+        res.put("items", result.items());
+        res.put("page", query.page());
+        res.put("size", query.size());
+        if (result.total() != null) res.put("total", result.total());
+        res.put("hasMore", result.hasMore());
+        return res;
+    }
+
+    @Operation(summary = "Danh sách nhân viên phân trang keyset (infinite scroll)",
+            description = "Trang đầu không truyền cursor; các trang sau truyền nextCursor của lần gọi trước " +
+                    "cùng filter/sort. Sort hỗ trợ: fullName, joinDate, code, department.")
+    @GetMapping("/scroll")
+    public Map<String, Object> scroll(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) String status,
+            @Parameter(description = "nextCursor của trang trước; bỏ trống = trang đầu") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Kích thước trang") @RequestParam(defaultValue = "50") int size,
+            @Parameter(description = "VD: fullName,asc | joinDate,desc") @RequestParam(defaultValue = "fullName,asc") String sort,
+            @Parameter(description = "Tổng số bản ghi: exact | cached | none")
+            @RequestParam(defaultValue = "none") String total
+    ) {
+        String[] parts = sort.split(",");
+        String field = parts[0].trim();
+        boolean desc = parts.length > 1 && "desc".equalsIgnoreCase(parts[1].trim());
+        if (!EmployeeCursor.FIELDS.contains(field)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be one of " + EmployeeCursor.FIELDS);
+        }
+
+        EmployeeCursor after = null;
+        if (StringUtils.hasText(cursor)) {
+            try {
+                after = EmployeeCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            if (!after.field().equals(field) || after.desc() != desc) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor does not match sort");
+            }
+        }
+
+        var query = new EmployeeListQuery(search, department, status, field, desc,
+                0, Math.min(Math.max(size, 1), 200), totalMode(total));
+        var result = employees.scroll(query, after);
+
+        var items = result.items();
+        var res = new LinkedHashMap<String, Object>();
+        res.put("items", items);
+        res.put("size", query.size());
+        if (result.total() != null) res.put("total", result.total());
+        res.put("hasMore", result.hasMore());
+        res.put("nextCursor", result.hasMore()
+                ? EmployeeCursor.after(items.get(items.size() - 1), field, desc).encode()
+                : null);
+        return res;
+    }
+
+    @Operation(summary = "Tìm nhanh nhân viên (type-ahead), xếp hạng theo độ khớp",
+            description = "Không phân biệt hoa thường/dấu; mỗi từ khoá khớp đầu một từ trong code/fullName/phone/position/department.")
+    @GetMapping("/search")
+    public List<Employee> search(
+            @RequestParam String q,
+            @Parameter(description = "Số kết quả tối đa") @RequestParam(defaultValue = "10") int limit
     ) {
-        // Lấy toàn bộ & lọc trong bộ nhớ – Sprint 1 cho nhanh
-        List<Employee> all = employees.findAll();
-
-        // filter
-        String q = StringUtils.hasText(search) ? search.trim().toLowerCase() : null;
-        String dept = StringUtils.hasText(department) ? department.trim().toLowerCase() : null;
-        String st = StringUtils.hasText(status) ? status.trim().toLowerCase() : null;
-
-        List<Employee> filtered = all.stream()
-                .filter(e -> {
-                    if (q == null) return true;
-                    return containsIgnoreCase(e.getCode(), q)
-                            || containsIgnoreCase(e.getFullName(), q)
-                            || containsIgnoreCase(e.getPhone(), q)
-                            || containsIgnoreCase(e.getPosition(), q)
-                            || containsIgnoreCase(e.getDepartment(), q);
-                })
-                .filter(e -> dept == null || equalsIgnoreCase(e.getDepartment(), dept))
-                .filter(e -> st == null || equalsIgnoreCase(e.getStatus(), st))
-                .collect(Collectors.toList());
-
-        // sort
-        Comparator<Employee> cmp = buildComparator(sort);
-        if (cmp != null) filtered.sort(cmp);
-
-        // pagination
-        long total = filtered.size();
-        int from = Math.max(0, page * size);
-        int to = Math.min(filtered.size(), from + size);
-        List<Employee> items = from >= to ? Collections.emptyList() : filtered.subList(from, to);
-
-        return Map.of(
-                "items", items,
-                "page", page,
-                "size", size,
-                "total", total
-        );
+        return searchService.search(q, Math.min(Math.max(limit, 1), 50));
     }
 
     /* ===================== EXPORT CSV ===================== */
 
-    @Operation(summary = "Export danh sách nhân viên (CSV) theo filter hiện tại")
+    @Operation(summary = "Export danh sách nhân viên (CSV) theo filter hiện tại",
+            description = "Đọc bằng cursor và ghi thẳng ra response nên bộ nhớ không tăng theo số nhân viên. " +
+                    "gzip=true: nén gzip (Content-Encoding) nếu client chấp nhận.")
     @GetMapping("/export")
     public void exportCsv(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String department,
             @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
             HttpServletResponse resp
     ) throws Exception {
-        // Tái sử dụng logic filter như trên
-        List<Employee> all = employees.findAll();
-
-        String q = StringUtils.hasText(search) ? search.trim().toLowerCase() : null;
-        String dept = StringUtils.hasText(department) ? department.trim().toLowerCase() : null;
-        String st = StringUtils.hasText(status) ? status.trim().toLowerCase() : null;
-
-        List<Employee> filtered = all.stream()
-                .filter(e -> {
-                    if (q == null) return true;
-                    return containsIgnoreCase(e.getCode(), q)
-                            || containsIgnoreCase(e.getFullName(), q)
-                            || containsIgnoreCase(e.getPhone(), q)
-                            || containsIgnoreCase(e.getPosition(), q)
-                            || containsIgnoreCase(e.getDepartment(), q);
-                })
-                .filter(e -> dept == null || equalsIgnoreCase(e.getDepartment(), dept))
-                .filter(e -> st == null || equalsIgnoreCase(e.getStatus(), st))
-                .collect(Collectors.toList());
+        boolean compress = gzip && acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
 
         String filename = "employees.csv";
         String encoded = URLEncoder.encode(filename, StandardCharsets.UTF_8);
         resp.setStatus(HttpStatus.OK.value());
         resp.setContentType("text/csv; charset=UTF-8");
         resp.setHeader("Content-Disposition", "attachment; filename*=UTF-8''" + encoded);
-
-        try (PrintWriter w = resp.getWriter()) {
-            w.println("Code,Full Name,Department,Position,Status,Join Date,Phone,Address");
-            for (Employee e : filtered) {
-                w.printf("\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\"%n",
-                        nz(e.getCode()), nz(e.getFullName()), nz(e.getDepartment()),
-                        nz(e.getPosition()), nz(e.getStatus()),
-                        nz(e.getJoinDate()), nz(e.getPhone()), nz(e.getAddress()));
+        if (compress) resp.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        OutputStream out = compress ? new GZIPOutputStream(resp.getOutputStream(), 8192) : resp.getOutputStream();
+        try (var rows = employees.streamForExport(search, department, status);
+             Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024)) {
+            w.write("Code,Full Name,Department,Position,Status,Join Date,Phone,Address\r\n");
+            int n = 0;
+            for (var it = rows.iterator(); it.hasNext(); ) {
+                Employee e = it.next();
+                writeCsvRow(w, e.getCode(), e.getFullName(), e.getDepartment(), e.getPosition(),
+                        e.getStatus(), e.getJoinDate(), e.getPhone(), e.getAddress());
+                if (++n % EXPORT_FLUSH_ROWS == 0) w.flush();
             }
         }
     }
@@ -162,17 +209,6 @@ public class EmployeesController {
 
     /* ===================== CREATE ===================== */
 
-    public record CreateEmployeeRequest(
-            @Schema(example = "NV-2025-0100") @NotBlank @Size(max = 50) String code,
-            @Schema(example = "Phạm Hoài Nam") @NotBlank @Size(max = 120) String fullName,
-            @Schema(example = "IT") @NotBlank @Size(max = 60) String department,
-            @Schema(example = "Frontend Dev") @NotBlank @Size(max = 80) String position,
-            @Schema(example = "ACTIVE") @NotBlank String status,
-            @Schema(example = "2024-08-20") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate joinDate,
-            @Schema(example = "0902345678") String phone,
-            @Schema(example = "Q.7, HCM") String address
-    ) {}
-
     @Operation(
             summary = "Tạo nhân viên (chỉ ADMIN/MANAGER)",
             requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
@@ -197,12 +233,6 @@ public class EmployeesController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Employee create(@Valid @RequestBody CreateEmployeeRequest req) {
-        // Kiểm tra trùng code
-        employees.findAll().stream()
-                .filter(e -> e.getCode() != null && e.getCode().equalsIgnoreCase(req.code()))
-                .findAny()
-                .ifPresent(e -> { throw new ResponseStatusException(HttpStatus.CONFLICT, "Employee code already exists"); });
-
         var emp = Employee.builder()
                 .code(req.code())
                 .fullName(req.fullName())
@@ -214,7 +244,40 @@ public class EmployeesController {
                 .address(req.address())
                 .build();
 
-        return employees.save(emp);
+        // trùng code (không phân biệt hoa thường) bị chặn bởi unique index codeNormalized
+        try {
+            return employees.insert(emp);
+        } catch (DuplicateKeyException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Employee code already exists");
+        }
+    }
+
+    @Operation(summary = "Import hàng loạt nhân viên từ CSV (có header) hoặc JSON lines; tuỳ chọn tạo luôn tài khoản EMPLOYEE",
+            description = "Cột/field: code, fullName, department, position, status, joinDate (yyyy-MM-dd), phone, address, "
+                    + "email, password. Mỗi dòng được validate như POST /employees; trả báo cáo theo từng dòng + thời gian từng pha.")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public EmployeeImportService.ImportReport importEmployees(
+            @RequestPart("file") MultipartFile file,
+            @Parameter(description = "csv | jsonl (mặc định theo đuôi file)") @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean createUsers,
+            @Parameter(description = "mật khẩu tạm cho các dòng không có cột password") @RequestParam(required = false) String tempPassword
+    ) throws Exception {
+        if (file.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File is empty");
+
+        String f = StringUtils.hasText(format) ? format
+                : (file.getOriginalFilename() != null && file.getOriginalFilename().toLowerCase().matches(".*\\.(jsonl|ndjson)$") ? "jsonl" : "csv");
+        EmployeeImportService.Format fmt = switch (f.toLowerCase()) {
+            case "csv" -> EmployeeImportService.Format.CSV;
+            case "jsonl", "ndjson" -> EmployeeImportService.Format.JSONL;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be csv or jsonl");
+        };
+
+        try (var in = file.getInputStream()) {
+            return importService.importFile(in, fmt, createUsers, tempPassword);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     /* ===================== UPDATE INFO (CONTACT) & JOB ===================== */
@@ -250,6 +313,7 @@ public class EmployeesController {
         var emp = employees.findById(id).orElseThrow(() ->
                 new ResponseStatusException(HttpStatus.NOT_FOUND, "Employee not found"));
 
+        String oldName = emp.getFullName();
         if (req.fullName()!=null && !req.fullName().isBlank()) emp.setFullName(req.fullName());
         if (req.phone()!=null)   emp.setPhone(req.phone());
         if (req.address()!=null) emp.setAddress(req.address());
@@ -261,6 +325,8 @@ public class EmployeesController {
             emp.setEmergencyContact(e);
         }
         employees.save(emp);
+        // tên hiển thị trong báo cáo mọi tháng
+        if (!Objects.equals(oldName, emp.getFullName())) reportDataChanged(emp.getDepartment());
         return Map.of("message","updated");
     }
 
@@ -275,6 +341,7 @@ public class EmployeesController {
         var emp = employees.findById(id).orElseThrow(() ->
                 new ResponseStatusException(HttpStatus.NOT_FOUND, "Employee not found"));
 
+        String oldDepartment = emp.getDepartment();
         if (req.department()!=null) emp.setDepartment(req.department());
         if (req.position()!=null)   emp.setPosition(req.position());
         if (req.status()!=null)     emp.setStatus(req.status());
@@ -282,11 +349,19 @@ public class EmployeesController {
         // grade / contractType: set nếu entity có
 
         employees.save(emp);
+        // nhân viên chuyển phòng ban: báo cáo của cả phòng cũ và mới đều đổi
+        if (!Objects.equals(oldDepartment, emp.getDepartment())) reportDataChanged(oldDepartment, emp.getDepartment());
         return Map.of("message","updated");
     }
 
     /* ===================== Helpers ===================== */
 
+    private void reportDataChanged(String... departments) {
+        Set<String> depts = new HashSet<>();
+        for (String d : departments) if (d != null) depts.add(d);
+        events.publishEvent(new ReportDataChangedEvent(null, null, depts));
+    }
+
     private void ensureCanEdit(Authentication auth, String employeeId){
         var me = (User) auth.getPrincipal();
         if (me.getRole() == User.Role.EMPLOYEE && !employeeId.equals(me.getEmployeeId())) {
@@ -294,32 +369,29 @@ public class EmployeesController {
         }
     }
 
-    private static boolean containsIgnoreCase(String s, String needleLower) {
-        return s != null && s.toLowerCase().contains(needleLower);
-    }
+    private static String nz(Object v) { return v == null ? "" : v.toString(); }
 
-    private static boolean equalsIgnoreCase(String s, String tLower) {
-        return s != null && s.equalsIgnoreCase(tLower);
+    /** 1 dòng CSV (RFC 4180): mọi ô đặt trong "..." và " bên trong được nhân đôi */
+    static void writeCsvRow(Writer w, Object... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) w.write(',');
+            w.write('"');
+            String v = nz(cells[i]);
+            for (int j = 0; j < v.length(); j++) {
+                char c = v.charAt(j);
+                if (c == '"') w.write('"');
+                w.write(c);
+            }
+            w.write('"');
+        }
+        w.write("\r\n");
     }
 
-    private static String nz(Object v) { return v == null ? "" : v.toString(); }
-
-    private Comparator<Employee> buildComparator(String sort) {
-        if (!StringUtils.hasText(sort)) return null;
-        String[] parts = sort.split(",");
-        String field = parts[0].trim();
-        boolean desc = parts.length > 1 && "desc".equalsIgnoreCase(parts[1]);
-
-        Comparator<Employee> c;
-        switch (field) {
-            case "code" -> c = Comparator.comparing(Employee::getCode, Comparator.nullsLast(String::compareToIgnoreCase));
-            case "fullName" -> c = Comparator.comparing(Employee::getFullName, Comparator.nullsLast(String::compareToIgnoreCase));
-            case "department" -> c = Comparator.comparing(Employee::getDepartment, Comparator.nullsLast(String::compareToIgnoreCase));
-            case "position" -> c = Comparator.comparing(Employee::getPosition, Comparator.nullsLast(String::compareToIgnoreCase));
-            case "status" -> c = Comparator.comparing(Employee::getStatus, Comparator.nullsLast(String::compareToIgnoreCase));
-            case "joinDate" -> c = Comparator.comparing(Employee::getJoinDate, Comparator.nullsLast(LocalDate::compareTo));
-            default -> c = Comparator.comparing(Employee::getFullName, Comparator.nullsLast(String::compareToIgnoreCase));
+    private static EmployeeListQuery.TotalMode totalMode(String total) {
+        try {
+            return EmployeeListQuery.TotalMode.valueOf(total.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "total must be exact, cached or none");
         }
-        return desc ? c.reversed() : c;
     }
 }
@@ -2,16 +2,21 @@ package com.hrm.hrmapi.web;
 
 import com.hrm.hrmapi.domain.Holiday;
 import com.hrm.hrmapi.repo.HolidayRepo;
+import com.hrm.hrmapi.service.HolidayCalendar;
+import com.hrm.hrmapi.service.HolidayChangedEvent;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.Year;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/holidays")
@@ -19,6 +24,8 @@ import java.util.List;
 public class HolidayController {
 
     private final HolidayRepo repo;
+    private final HolidayCalendar calendar;
+    private final ApplicationEventPublisher events;
 
     @Operation(summary = "List holidays by year")
     @GetMapping
@@ -34,7 +41,9 @@ public class HolidayController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Holiday create(@Valid @RequestBody Holiday body) {
-        return repo.save(body);
+        var saved = repo.save(body);
+        changed("CREATE", saved.getDate());
+        return saved;
     }
 
     @Operation(summary = "Update holiday")
@@ -42,7 +51,10 @@ public class HolidayController {
     @PutMapping("/{id}")
     public Holiday update(@PathVariable String id, @Valid @RequestBody Holiday body) {
         body.setId(id);
-        return repo.save(body);
+        var old = repo.findById(id).map(Holiday::getDate).orElse(null);
+        var saved = repo.save(body);
+        changed("UPDATE", old, saved.getDate());
+        return saved;
     }
 
     @Operation(summary = "Delete holiday")
@@ -50,6 +62,16 @@ public class HolidayController {
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable String id) {
+        var old = repo.findById(id).map(Holiday::getDate).orElse(null);
         repo.deleteById(id);
+        changed("DELETE", old);
+    }
+
+    /** Làm mới lịch trong bộ nhớ rồi báo cho recalc nền các ngày bị ảnh hưởng */
+    private void changed(String action, LocalDate... dates) {
+        calendar.invalidate();
+        Set<LocalDate> affected = new HashSet<>();
+        for (var d : dates) if (d != null) affected.add(d);
+        if (!affected.isEmpty()) events.publishEvent(new HolidayChangedEvent(action, affected));
     }
 }
@@ -3,6 +3,7 @@ package com.hrm.hrmapi.web;
 
 import com.hrm.hrmapi.domain.LeaveType;
 import com.hrm.hrmapi.repo.LeaveTypeRepo;
+import com.hrm.hrmapi.service.LeaveTypeCatalog;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +19,7 @@ import java.util.List;
 public class LeaveTypeController {
 
     private final LeaveTypeRepo repo;
+    private final LeaveTypeCatalog catalog;
 
     @Operation(summary = "List all leave types")
     @GetMapping
@@ -30,7 +32,10 @@ public class LeaveTypeController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public LeaveType create(@Valid @RequestBody LeaveType body) {
-        return repo.save(body);
+        if (body.getPaid() == null) body.setPaid(true);
+        var saved = repo.save(body);
+        catalog.invalidate();
+        return saved;
     }
 
     @Operation(summary = "Update")
@@ -38,7 +43,10 @@ public class LeaveTypeController {
     @PutMapping("/{id}")
     public LeaveType update(@PathVariable String id, @Valid @RequestBody LeaveType body) {
         body.setId(id);
-        return repo.save(body);
+        if (body.getPaid() == null) body.setPaid(true);
+        var saved = repo.save(body);
+        catalog.invalidate();
+        return saved;
     }
 
     @Operation(summary = "Delete")
@@ -47,5 +55,6 @@ public class LeaveTypeController {
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable String id) {
         repo.deleteById(id);
+        catalog.invalidate();
     }
 }
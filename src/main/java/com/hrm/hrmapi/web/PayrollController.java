@@ -1,10 +1,14 @@
 // src/main/java/com/hrm/hrmapi/web/PayrollController.java
 package com.hrm.hrmapi.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hrm.hrmapi.payroll.PayrollCycle;
 import com.hrm.hrmapi.payroll.Payslip;
+import com.hrm.hrmapi.payroll.PayslipRow;
 import com.hrm.hrmapi.repo.payroll.PayrollCycleRepo;
 import com.hrm.hrmapi.repo.payroll.PayslipRepo;
+import com.hrm.hrmapi.service.PayrollRunService;
 import com.hrm.hrmapi.service.PayrollService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,14 +21,19 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping(value = "/payroll", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -37,6 +46,8 @@ public class PayrollController {
     private final PayrollCycleRepo cycleRepo;
     private final PayslipRepo payslipRepo;
     private final PayrollService payrollService;
+    private final PayrollRunService payrollRunService;
+    private final ObjectMapper objectMapper;
 
     // ===== Cycles =====
 
@@ -87,15 +98,62 @@ public class PayrollController {
         return ResponseEntity.ok(payrollService.calculateForAll(cycleId));
     }
 
+    @Operation(
+            summary = "Chạy payroll cả kỳ",
+            description = "Nạp toàn bộ dữ liệu của kỳ bằng query bulk, tính payslip song song rồi bulk upsert. " +
+                    "Trả về số payslip đã tính/bỏ qua/lỗi và thời gian từng pha (fetch, compute, write).",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Đã chạy xong",
+                            content = @Content(schema = @Schema(implementation = PayrollRunService.RunReport.class))),
+                    @ApiResponse(responseCode = "404", description = "Không tìm thấy kỳ lương")
+            }
+    )
+    @PostMapping("/cycles/{cycleId}/run")
+    public PayrollRunService.RunReport run(
+            @Parameter(description = "ID kỳ lương", example = "2025-11")
+            @PathVariable String cycleId
+    ) {
+        return payrollRunService.run(cycleId);
+    }
+
     // ===== Payslips =====
 
-    @Operation(summary = "Danh sách payslip trong kỳ")
+    @Operation(
+            summary = "Danh sách payslip trong kỳ",
+            description = "Có page: trả về trang {items, page, size, total} chỉ gồm các field tổng hợp. " +
+                    "Không có page: stream toàn bộ payslip (đầy đủ) của kỳ dưới dạng JSON array."
+    )
     @GetMapping("/cycles/{cycleId}/payslips")
-    public List<Payslip> listPayslips(
+    public ResponseEntity<?> listPayslips(
             @Parameter(description = "ID kỳ lương", example = "2025-11")
-            @PathVariable String cycleId
+            @PathVariable String cycleId,
+            @Parameter(description = "Trang, bắt đầu từ 0; bỏ trống để lấy toàn bộ")
+            @RequestParam(required = false) Integer page,
+            @Parameter(description = "Kích thước trang (tối đa 500)")
+            @RequestParam(defaultValue = "50") int size
     ) {
-        return payslipRepo.findByCycleId(cycleId);
+        if (page != null) {
+            var pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 500), Sort.by("employeeId"));
+            Page<PayslipRow> rows = payslipRepo.findRowsByCycleId(cycleId, pageable);
+            return ResponseEntity.ok(Map.of(
+                    "items", rows.getContent(),
+                    "page", rows.getNumber(),
+                    "size", rows.getSize(),
+                    "total", rows.getTotalElements()
+            ));
+        }
+
+        StreamingResponseBody body = out -> {
+            try (var stream = payslipRepo.streamByCycleIdOrderByEmployeeIdAsc(cycleId);
+                 JsonGenerator gen = objectMapper.createGenerator(out)) {
+                gen.writeStartArray();
+                for (var it = stream.iterator(); it.hasNext(); ) {
+                    gen.writeObject(it.next());
+                }
+                gen.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @Operation(summary = "Chi tiết một payslip")
@@ -4,6 +4,7 @@ import com.hrm.hrmapi.domain.Employee;
 import com.hrm.hrmapi.domain.User;
 import com.hrm.hrmapi.repo.EmployeeRepo;
 import com.hrm.hrmapi.repo.UserRepo;
+import com.hrm.hrmapi.security.PrincipalCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -26,12 +27,13 @@ public class ProfileController {
 
     private final UserRepo users;
     private final EmployeeRepo employees;
+    private final PrincipalCache principalCache;
 
     // ----- GET: xem thông tin cá nhân + quick summary -----
     @Operation(summary = "Xem thông tin cá nhân + quick summary")
     @GetMapping
     public Map<String, Object> myProfile(Authentication auth) {
-        var u = (User) auth.getPrincipal();
+        var u = principalCache.full((User) auth.getPrincipal());
 
         Employee emp = null;
         if (u.getEmployeeId() != null) {
@@ -96,10 +98,11 @@ public class ProfileController {
     @PutMapping
     public Map<String, Object> update(Authentication auth,
                                       @RequestBody @Valid UpdateProfileRequest req) {
-        var u = (User) auth.getPrincipal();
+        var u = principalCache.full((User) auth.getPrincipal());
         if (req.fullName() != null && !req.fullName().isBlank()) {
             u.setFullName(req.fullName());
             users.save(u);
+            principalCache.invalidate(u.getId());
         }
 
         if (u.getEmployeeId() != null) {
@@ -129,9 +132,10 @@ public class ProfileController {
     @PutMapping("/avatar")
     public Map<String, Object> updateAvatar(Authentication auth,
                                             @RequestBody @Valid UpdateAvatarRequest body) {
-        var u = (User) auth.getPrincipal();
+        var u = principalCache.full((User) auth.getPrincipal());
         u.setAvatarUrl(body.avatarUrl());
         users.save(u);
+        principalCache.invalidate(u.getId());
         return Map.of("message", "Avatar updated", "avatarUrl", u.getAvatarUrl());
     }
 }
@@ -1,181 +1,289 @@
 // web/ReportController.java
 package com.hrm.hrmapi.web;
 
+import com.hrm.hrmapi.service.ReportCache;
 import com.hrm.hrmapi.service.ReportService;
 import com.hrm.hrmapi.web.dto.report.*;
 import com.opencsv.CSVWriter;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
 
+/**
+ * Export báo cáo dạng stream: dòng đọc từ cursor Mongo được ghi thẳng ra response,
+ * tổng cộng dồn trong lúc ghi, nên heap không phụ thuộc kích thước báo cáo và client nhận byte đầu ngay.
+ * Bản đã render được giữ trong ReportCache (đĩa local, ETag) tới khi dữ liệu tháng / phòng ban đó đổi (tối đa hrm.report.cache.max-age-seconds).
+ */
 @RestController
 @RequestMapping("/reports")
 @RequiredArgsConstructor
 public class ReportController {
 
+    // flush CSV sau mỗi N dòng
+    private static final int CSV_FLUSH_ROWS = 1000;
+    // số dòng PDF giữ trong bảng trước khi đẩy ra document (bảng incomplete được ghi rồi giải phóng)
+    private static final int PDF_CHUNK_ROWS = 200;
+
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv; charset=UTF-8");
+
     private final ReportService reportService;
+    private final ReportCache cache;
 
-    @GetMapping("/attendance.csv")
-    public ResponseEntity<byte[]> exportAttendanceCsv(
+    // tổng hợp tháng cho dashboard, không kèm dòng chi tiết
+    @GetMapping("/attendance/summary")
+    public AttendanceMonthlySummary attendanceSummary(
             @RequestParam String month,
             @RequestParam(required = false) String department
+    ) {
+        return reportService.attendanceSummary(month, department);
+    }
+
+    @GetMapping("/attendance.csv")
+    public ResponseEntity<?> exportAttendanceCsv(
+            @RequestParam String month,
+            @RequestParam(required = false) String department,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) throws IOException {
-        AttendanceReport r = reportService.buildAttendanceReport(month, department);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (CSVWriter w = new CSVWriter(new java.io.OutputStreamWriter(baos, StandardCharsets.UTF_8))) {
-            w.writeNext(new String[] {"Month", r.getMonth(), "Department", r.getDepartment() == null ? "" : r.getDepartment()});
-            w.writeNext(new String[] {"EmployeeId","Name","Department","Date","Status","CheckIn","CheckOut","LateMin","EarlyMin","OTMin"});
-            for (var row : r.getRows()) {
-                w.writeNext(new String[]{
-                        row.getEmployeeId(), row.getEmployeeName(), row.getDepartment(), row.getDate(),
-                        row.getStatus(),
-                        row.getCheckIn() == null ? "" : row.getCheckIn(),
-                        row.getCheckOut() == null ? "" : row.getCheckOut(),
-                        String.valueOf(row.getLateMinutes()),
-                        String.valueOf(row.getEarlyMinutes()),
-                        String.valueOf(row.getOtMinutes())
-                });
+        // sai định dạng tháng thì lỗi ngay, trước khi bắt đầu stream
+        var key = new ReportCache.Key("attendance", YearMonth.parse(month).toString(), department, "csv");
+        StreamingResponseBody body = out -> {
+            var tally = new ReportService.AttendanceTally();
+            try (var stream = reportService.streamAttendanceRows(month, department);
+                 CSVWriter w = new CSVWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024))) {
+                w.writeNext(new String[] {"Month", month, "Department", department == null ? "" : department});
+                w.writeNext(new String[] {"EmployeeId","Name","Department","Date","Status","CheckIn","CheckOut","LateMin","EarlyMin","OTMin"});
+                w.flush();
+
+                int n = 0;
+                for (var it = stream.iterator(); it.hasNext(); ) {
+                    var row = it.next();
+                    tally.accept(row);
+                    w.writeNext(new String[]{
+                            row.getEmployeeId(), row.getEmployeeName(), row.getDepartment(), row.getDate(),
+                            row.getStatus(),
+                            row.getCheckIn() == null ? "" : row.getCheckIn(),
+                            row.getCheckOut() == null ? "" : row.getCheckOut(),
+                            String.valueOf(row.getLateMinutes()),
+                            String.valueOf(row.getEarlyMinutes()),
+                            String.valueOf(row.getOtMinutes())
+                    });
+                    if (++n % CSV_FLUSH_ROWS == 0) w.flush();
+                }
+
+                var s = tally.summary();
+                w.writeNext(new String[] {});
+                w.writeNext(new String[] {"TotalLateMin", String.valueOf(s.getTotalLateMinutes()),
+                        "TotalEarlyMin", String.valueOf(s.getTotalEarlyMinutes()),
+                        "TotalOTMin", String.valueOf(s.getTotalOtMinutes())});
+                w.writeNext(new String[] {"Present", String.valueOf(s.getTotalPresentDays()),
+                        "Leave", String.valueOf(s.getTotalLeaveDays()),
+                        "WFH", String.valueOf(s.getTotalWfhDays()),
+                        "Holiday", String.valueOf(s.getTotalHolidayDays()),
+                        "Absent", String.valueOf(s.getTotalAbsentDays())});
             }
-            var s = r.getSummary();
-            w.writeNext(new String[] {});
-            w.writeNext(new String[] {"TotalLateMin", String.valueOf(s.getTotalLateMinutes()),
-                    "TotalEarlyMin", String.valueOf(s.getTotalEarlyMinutes()),
-                    "TotalOTMin", String.valueOf(s.getTotalOtMinutes())});
-            w.writeNext(new String[] {"Present", String.valueOf(s.getTotalPresentDays()),
-                    "Leave", String.valueOf(s.getTotalLeaveDays()),
-                    "WFH", String.valueOf(s.getTotalWfhDays()),
-                    "Holiday", String.valueOf(s.getTotalHolidayDays()),
-                    "Absent", String.valueOf(s.getTotalAbsentDays())});
-        }
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("text/csv; charset=UTF-8"));
-        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=attendance-" + month + ".csv");
-        return new ResponseEntity<>(baos.toByteArray(), headers, HttpStatus.OK);
+        };
+        return serve(key, ifNoneMatch, CSV, "attendance-" + month + ".csv", body);
     }
 
     @GetMapping("/attendance.pdf")
-    public ResponseEntity<byte[]> exportAttendancePdf(
+    public ResponseEntity<?> exportAttendancePdf(
             @RequestParam String month,
-            @RequestParam(required = false) String department
-    ) {
-        AttendanceReport r = reportService.buildAttendanceReport(month, department);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Document doc = new Document(PageSize.A4.rotate());
-        PdfWriter.getInstance(doc, baos);
-        doc.open();
+            @RequestParam(required = false) String department,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) throws IOException {
+        var key = new ReportCache.Key("attendance", YearMonth.parse(month).toString(), department, "pdf");
+        StreamingResponseBody body = out -> {
+            var tally = new ReportService.AttendanceTally();
+            Document doc = new Document(PageSize.A4.rotate());
+            PdfWriter.getInstance(doc, out);
+            doc.open();
+            try (var stream = reportService.streamAttendanceRows(month, department)) {
+                Font title = new Font(Font.HELVETICA, 16, Font.BOLD);
+                doc.add(new Paragraph("Attendance Report - " + month + (department != null ? " - " + department : ""), title));
+                doc.add(new Paragraph(" "));
 
-        Font title = new Font(Font.HELVETICA, 16, Font.BOLD);
-        doc.add(new Paragraph("Attendance Report - " + month + (department != null ? " - " + department : ""), title));
-        doc.add(new Paragraph(" "));
+                PdfPTable table = streamingTable(new float[]{12,18,14,12,10,10,10,8,8,8},
+                        "EmployeeId","Name","Department","Date","Status","CheckIn","CheckOut","Late","Early","OT");
+                int n = 0;
+                for (var it = stream.iterator(); it.hasNext(); ) {
+                    var row = it.next();
+                    tally.accept(row);
+                    addCell(table, row.getEmployeeId(), row.getEmployeeName(), row.getDepartment(), row.getDate(),
+                            row.getStatus(),
+                            nullToEmpty(row.getCheckIn()),
+                            nullToEmpty(row.getCheckOut()),
+                            String.valueOf(row.getLateMinutes()),
+                            String.valueOf(row.getEarlyMinutes()),
+                            String.valueOf(row.getOtMinutes()));
+                    if (++n % PDF_CHUNK_ROWS == 0) doc.add(table);
+                }
+                table.setComplete(true);
+                doc.add(table);
 
-        PdfPTable table = new PdfPTable(10);
-        table.setWidthPercentage(100);
-        try {
-            table.setWidths(new float[]{12,18,14,12,10,10,10,8,8,8});
-        } catch (DocumentException ignored) { }
-        addHeader(table, "EmployeeId","Name","Department","Date","Status","CheckIn","CheckOut","Late","Early","OT");
-        for (var row : r.getRows()) {
-            addCell(table, row.getEmployeeId(), row.getEmployeeName(), row.getDepartment(), row.getDate(),
-                    row.getStatus(),
-                    nullToEmpty(row.getCheckIn()),
-                    nullToEmpty(row.getCheckOut()),
-                    String.valueOf(row.getLateMinutes()),
-                    String.valueOf(row.getEarlyMinutes()),
-                    String.valueOf(row.getOtMinutes()));
-        }
-        doc.add(table);
-
-        doc.add(new Paragraph(" "));
-        var s = r.getSummary();
-        doc.add(new Paragraph(
-                "Totals  Late: " + s.getTotalLateMinutes()
-                        + "  Early: " + s.getTotalEarlyMinutes()
-                        + "  OT: " + s.getTotalOtMinutes()
-                        + "  Present: " + s.getTotalPresentDays()
-                        + "  Leave: " + s.getTotalLeaveDays()
-                        + "  WFH: " + s.getTotalWfhDays()
-                        + "  Holiday: " + s.getTotalHolidayDays()
-                        + "  Absent: " + s.getTotalAbsentDays()
-        ));
-
-        doc.close();
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=attendance-" + month + ".pdf");
-        return new ResponseEntity<>(baos.toByteArray(), headers, HttpStatus.OK);
+                doc.add(new Paragraph(" "));
+                var s = tally.summary();
+                doc.add(new Paragraph(
+                        "Totals  Late: " + s.getTotalLateMinutes()
+                                + "  Early: " + s.getTotalEarlyMinutes()
+                                + "  OT: " + s.getTotalOtMinutes()
+                                + "  Present: " + s.getTotalPresentDays()
+                                + "  Leave: " + s.getTotalLeaveDays()
+                                + "  WFH: " + s.getTotalWfhDays()
+                                + "  Holiday: " + s.getTotalHolidayDays()
+                                + "  Absent: " + s.getTotalAbsentDays()
+                ));
+            } finally {
+                doc.close();
+            }
+        };
+        return serve(key, ifNoneMatch, MediaType.APPLICATION_PDF, "attendance-" + month + ".pdf", body);
     }
 
     @GetMapping("/leave.csv")
-    public ResponseEntity<byte[]> exportLeaveCsv(
+    public ResponseEntity<?> exportLeaveCsv(
             @RequestParam String month,
-            @RequestParam(required = false) String department
+            @RequestParam(required = false) String department,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) throws IOException {
-        LeaveReport r = reportService.buildLeaveReport(month, department);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (CSVWriter w = new CSVWriter(new java.io.OutputStreamWriter(baos, StandardCharsets.UTF_8))) {
-            w.writeNext(new String[] {"Month", r.getMonth(), "Department", r.getDepartment() == null ? "" : r.getDepartment()});
-            w.writeNext(new String[] {"RequestId","EmployeeId","Name","Department","Type","From","To","Days","Status"});
-            for (var row : r.getRows()) {
-                w.writeNext(new String[]{
-                        row.getRequestId(), row.getEmployeeId(), row.getEmployeeName(), row.getDepartment(),
-                        row.getType(), row.getFromDate(), row.getToDate(),
-                        String.valueOf(row.getDays()), row.getStatus()
-                });
+        var key = new ReportCache.Key("leave", YearMonth.parse(month).toString(), department, "csv");
+        StreamingResponseBody body = out -> {
+            var tally = new ReportService.LeaveTally();
+            try (var stream = reportService.streamLeaveRows(month, department);
+                 CSVWriter w = new CSVWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024))) {
+                w.writeNext(new String[] {"Month", month, "Department", department == null ? "" : department});
+                w.writeNext(new String[] {"RequestId","EmployeeId","Name","Department","Type","From","To","Days","Status"});
+                w.flush();
+
+                int n = 0;
+                for (var it = stream.iterator(); it.hasNext(); ) {
+                    var row = it.next();
+                    tally.accept(row);
+                    w.writeNext(new String[]{
+                            row.getRequestId(), row.getEmployeeId(), row.getEmployeeName(), row.getDepartment(),
+                            row.getType(), row.getFromDate(), row.getToDate(),
+                            String.valueOf(row.getDays()), row.getStatus()
+                    });
+                    if (++n % CSV_FLUSH_ROWS == 0) w.flush();
+                }
+                w.writeNext(new String[] {});
+                w.writeNext(new String[] {"TotalDaysApproved", String.valueOf(tally.getApproved()),
+                        "TotalDaysPending", String.valueOf(tally.getPending())});
             }
-            w.writeNext(new String[] {});
-            w.writeNext(new String[] {"TotalDaysApproved", String.valueOf(r.getTotalDaysApproved()),
-                    "TotalDaysPending", String.valueOf(r.getTotalDaysPending())});
-        }
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("text/csv; charset=UTF-8"));
-        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=leave-" + month + ".csv");
-        return new ResponseEntity<>(baos.toByteArray(), headers, HttpStatus.OK);
+        };
+        return serve(key, ifNoneMatch, CSV, "leave-" + month + ".csv", body);
     }
 
     @GetMapping("/leave.pdf")
-    public ResponseEntity<byte[]> exportLeavePdf(
+    public ResponseEntity<?> exportLeavePdf(
             @RequestParam String month,
-            @RequestParam(required = false) String department
-    ) {
-        LeaveReport r = reportService.buildLeaveReport(month, department);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Document doc = new Document(PageSize.A4.rotate());
-        PdfWriter.getInstance(doc, baos);
-        doc.open();
-        Font title = new Font(Font.HELVETICA, 16, Font.BOLD);
-        doc.add(new Paragraph("Leave Report - " + month + (department != null ? " - " + department : ""), title));
-        doc.add(new Paragraph(" "));
-
-        PdfPTable table = new PdfPTable(9);
-        table.setWidthPercentage(100);
-        try {
-            table.setWidths(new float[]{14,12,18,14,12,12,12,8,10});
-        } catch (DocumentException ignored) { }
-        addHeader(table, "RequestId","EmpId","Name","Department","Type","From","To","Days","Status");
-        for (var row : r.getRows()) {
-            addCell(table, row.getRequestId(), row.getEmployeeId(), row.getEmployeeName(), row.getDepartment(),
-                    row.getType(), row.getFromDate(), row.getToDate(),
-                    String.valueOf(row.getDays()), row.getStatus());
+            @RequestParam(required = false) String department,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) throws IOException {
+        var key = new ReportCache.Key("leave", YearMonth.parse(month).toString(), department, "pdf");
+        StreamingResponseBody body = out -> {
+            var tally = new ReportService.LeaveTally();
+            Document doc = new Document(PageSize.A4.rotate());
+            PdfWriter.getInstance(doc, out);
+            doc.open();
+            try (var stream = reportService.streamLeaveRows(month, department)) {
+                Font title = new Font(Font.HELVETICA, 16, Font.BOLD);
+                doc.add(new Paragraph("Leave Report - " + month + (department != null ? " - " + department : ""), title));
+                doc.add(new Paragraph(" "));
+
+                PdfPTable table = streamingTable(new float[]{14,12,18,14,12,12,12,8,10},
+                        "RequestId","EmpId","Name","Department","Type","From","To","Days","Status");
+                int n = 0;
+                for (var it = stream.iterator(); it.hasNext(); ) {
+                    var row = it.next();
+                    tally.accept(row);
+                    addCell(table, row.getRequestId(), row.getEmployeeId(), row.getEmployeeName(), row.getDepartment(),
+                            row.getType(), row.getFromDate(), row.getToDate(),
+                            String.valueOf(row.getDays()), row.getStatus());
+                    if (++n % PDF_CHUNK_ROWS == 0) doc.add(table);
+                }
+                table.setComplete(true);
+                doc.add(table);
+
+                doc.add(new Paragraph(" "));
+                doc.add(new Paragraph("Total days approved: " + tally.getApproved()
+                        + "   Total days pending: " + tally.getPending()));
+            } finally {
+                doc.close();
+            }
+        };
+        return serve(key, ifNoneMatch, MediaType.APPLICATION_PDF, "leave-" + month + ".pdf", body);
+    }
+
+    /**
+     * Có trong cache: trả file đã render kèm ETag (If-None-Match khớp -> 304).
+     * Chưa có: render stream ra response, đồng thời ghi vào cache cho lần sau.
+     */
+    private ResponseEntity<?> serve(ReportCache.Key key, String ifNoneMatch, MediaType type, String filename,
+                                    StreamingResponseBody render) throws IOException {
+        var hit = cache.get(key);
+        if (hit != null) {
+            String etag = "\"" + hit.etag() + "\"";
+            if (etagMatches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            InputStream in = hit.open();
+            if (in != null) {
+                return ResponseEntity.ok()
+                        .eTag(etag)
+                        .contentType(type)
+                        .contentLength(hit.size())
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                        .body(new InputStreamResource(in));
+            }
         }
-        doc.add(table);
 
-        doc.add(new Paragraph(" "));
-        doc.add(new Paragraph("Total days approved: " + r.getTotalDaysApproved()
-                + "   Total days pending: " + r.getTotalDaysPending()));
+        StreamingResponseBody body = out -> {
+            try (var fill = cache.begin(key, out)) {
+                render.writeTo(fill.out());
+                fill.commit();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .body(body);
+    }
 
-        doc.close();
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String t : ifNoneMatch.split(",")) {
+            t = t.trim();
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals("*") || t.equals(etag)) return true;
+        }
+        return false;
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=leave-" + month + ".pdf");
-        return new ResponseEntity<>(baos.toByteArray(), headers, HttpStatus.OK);
+    /**
+     * Bảng ghi dần: complete=false nên mỗi lần doc.add(table) các dòng đã thêm được render ra trang
+     * rồi bỏ khỏi bảng; header lặp lại ở mỗi trang.
+     */
+    private static PdfPTable streamingTable(float[] widths, String... header) {
+        PdfPTable table = new PdfPTable(widths.length);
+        table.setWidthPercentage(100);
+        try {
+            table.setWidths(widths);
+        } catch (DocumentException ignored) { }
+        addHeader(table, header);
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        return table;
     }
 
     private static void addHeader(PdfPTable t, String... cells) {
@@ -4,6 +4,8 @@ import com.hrm.hrmapi.domain.Employee;
 import com.hrm.hrmapi.domain.User;
 import com.hrm.hrmapi.repo.EmployeeRepo;
 import com.hrm.hrmapi.repo.UserRepo;
+import com.hrm.hrmapi.security.PasswordHasher;
+import com.hrm.hrmapi.security.PrincipalCache;
 import com.hrm.hrmapi.service.FileStorageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -17,7 +19,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
@@ -34,8 +35,9 @@ public class UsersController {
 
     private final UserRepo users;
     private final EmployeeRepo employees;
-    private final PasswordEncoder pe;
+    private final PasswordHasher hasher;
     private final FileStorageService fileStorage;
+    private final PrincipalCache principalCache;
 
     /* ===================== DTOs ===================== */
 
@@ -138,6 +140,9 @@ public class UsersController {
             else fullName = titleCaseFromEmail(email);
         }
 
+        // băm trước khi lưu avatar: pool băm đầy (503) thì không để lại file mồ côi
+        String passwordHash = hasher.encode(tempPassword);
+
         // Avatar: ưu tiên file upload; nếu không có file thì dùng avatarUrl (nếu có)
         String publicPath = null;
         if (avatarFile != null && !avatarFile.isEmpty()) {
@@ -150,7 +155,7 @@ public class UsersController {
         var u = User.builder()
                 .email(email)
                 .fullName(fullName) // <-- KHÔNG còn null
-                .passwordHash(pe.encode(tempPassword))
+                .passwordHash(passwordHash)
                 .role(role)
                 .employeeId(employeeId)
                 .avatarUrl(avatarAbsolute)
@@ -279,6 +284,7 @@ public class UsersController {
         }
 
         users.save(u);
+        principalCache.invalidate(u.getId());
         return Map.of("message", "User updated");
     }
 
@@ -289,8 +295,9 @@ public class UsersController {
                                    @RequestBody @Valid AdminSetPasswordRequest req) {
         var u = users.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        u.setPasswordHash(pe.encode(req.newPassword()));
+        u.setPasswordHash(hasher.encode(req.newPassword()));
         users.save(u);
+        principalCache.invalidate(u.getId());
         return Map.of("message", "Password updated");
     }
 
@@ -311,6 +318,7 @@ public class UsersController {
 
         u.setAvatarUrl(absolute);
         users.save(u);
+        principalCache.invalidate(u.getId());
 
         return Map.of("message", "Avatar updated", "avatarUrl", absolute);
     }
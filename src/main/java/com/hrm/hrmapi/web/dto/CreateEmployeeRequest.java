@@ -0,0 +1,20 @@
+package com.hrm.hrmapi.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// dùng cho POST /employees và validate từng dòng của bulk import
+public record CreateEmployeeRequest(
+        @Schema(example = "NV-2025-0100") @NotBlank @Size(max = 50) String code,
+        @Schema(example = "Phạm Hoài Nam") @NotBlank @Size(max = 120) String fullName,
+        @Schema(example = "IT") @NotBlank @Size(max = 60) String department,
+        @Schema(example = "Frontend Dev") @NotBlank @Size(max = 80) String position,
+        @Schema(example = "ACTIVE") @NotBlank String status,
+        @Schema(example = "2024-08-20") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate joinDate,
+        @Schema(example = "0902345678") String phone,
+        @Schema(example = "Q.7, HCM") String address
+) {}
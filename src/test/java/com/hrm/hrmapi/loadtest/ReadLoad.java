@@ -0,0 +1,118 @@
+// src/test/java/com/hrm/hrmapi/loadtest/ReadLoad.java
+package com.hrm.hrmapi.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tải đọc đơn giản để so profile mặc định với profile vthreads (và cỡ pool Mongo) trên cùng 1 máy.
+ * Không phải unit test (surefire không chạy): chạy tay với app đang chạy sẵn, vd
+ *   java -cp target/test-classes com.hrm.hrmapi.loadtest.ReadLoad http://localhost:8080 /employees 400 60
+ * Tham số: baseUrl, path (GET), số client đồng thời, số giây đo (sau 10s làm nóng).
+ * In ra req/s, p50/p95/p99 và số lỗi (non-2xx + exception, vd 503 khi pool Mongo chờ quá max-wait-ms).
+ * Số đo chỉ có ý nghĩa trên máy/DB giống môi trường chạy thật; không so số giữa 2 máy khác nhau.
+ */
+public class ReadLoad {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        String path = args.length > 1 ? args[1] : "/employees";
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+        String email = System.getProperty("email", "admin@hrm.local");
+        String password = System.getProperty("password", "admin");
+
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String token = login(http, base, email, password);
+        HttpRequest get = HttpRequest.newBuilder(URI.create(base + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET().build();
+
+        run(http, get, clients, 10);   // làm nóng: JIT, pool kết nối, cache
+        Result r = run(http, get, clients, seconds);
+
+        long[] lat = r.latenciesNanos();
+        Arrays.sort(lat);
+        System.out.printf("%s%s clients=%d seconds=%d%n", base, path, clients, seconds);
+        System.out.printf("ok=%d errors=%d throughput=%.1f req/s%n", lat.length, r.errors(), lat.length / (double) seconds);
+        System.out.printf("p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms%n",
+                pct(lat, 0.50), pct(lat, 0.95), pct(lat, 0.99), lat.length == 0 ? 0 : lat[lat.length - 1] / 1e6);
+    }
+
+    private record Result(long[] latenciesNanos, long errors) {}
+
+    private static Result run(HttpClient http, HttpRequest get, int clients, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> futures = new ArrayList<>(clients);
+
+        try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                futures.add(exec.submit(() -> {
+                    long[] buf = new long[1024];
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        long t0 = System.nanoTime();
+                        try {
+                            var res = http.send(get, HttpResponse.BodyHandlers.discarding());
+                            if (res.statusCode() / 100 != 2) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (n == buf.length) buf = Arrays.copyOf(buf, n * 2);
+                        buf[n++] = System.nanoTime() - t0;
+                    }
+                    return Arrays.copyOf(buf, n);
+                }));
+            }
+        }
+
+        long[] all = new long[0];
+        for (var f : futures) {
+            long[] part = f.get();
+            int off = all.length;
+            all = Arrays.copyOf(all, off + part.length);
+            System.arraycopy(part, 0, all, off, part.length);
+        }
+        return new Result(all, errors.get());
+    }
+
+    private static String login(HttpClient http, String base, String email, String password) throws Exception {
+        String body = "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
+        var res = http.send(HttpRequest.newBuilder(URI.create(base + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+        Matcher m = TOKEN.matcher(res.body());
+        if (res.statusCode() != 200 || !m.find()) {
+            throw new IllegalStateException("Login failed: HTTP " + res.statusCode() + " " + res.body());
+        }
+        return m.group(1);
+    }
+
+    private static double pct(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(i, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,84 @@
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.Employee;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmployeeCursorTest {
+
+    @Test
+    void roundTripsStringDateAndNullValues() {
+        for (var c : List.of(
+                new EmployeeCursor("fullName", false, "Nguyễn Văn A\nx", "e1"),
+                new EmployeeCursor("joinDate", true, LocalDate.of(2024, 2, 29), "e2"),
+                new EmployeeCursor("department", false, null, "e3"))) {
+            assertThat(EmployeeCursor.decode(c.encode())).isEqualTo(c);
+        }
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String encoded = new EmployeeCursor("code", true, "??>>//", "id").encode();
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void afterTakesTheSortValueOfTheLastRow() {
+        var last = Employee.builder().id("e9").code("NV01").fullName("B").department(null)
+                .joinDate(LocalDate.of(2020, 1, 1)).build();
+        assertThat(EmployeeCursor.after(last, "code", false).value()).isEqualTo("NV01");
+        assertThat(EmployeeCursor.after(last, "joinDate", false).value()).isEqualTo(LocalDate.of(2020, 1, 1));
+        assertThat(EmployeeCursor.after(last, "department", true).value()).isNull();
+        assertThat(EmployeeCursor.after(last, "department", true).id()).isEqualTo("e9");
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        String unknownField = Base64.getUrlEncoder().encodeToString("salary\na\nid\ns:1".getBytes());
+        String badType = Base64.getUrlEncoder().encodeToString("code\na\nid\nx:1".getBytes());
+        for (String bad : List.of("!!!", unknownField, badType, Base64.getUrlEncoder().encodeToString("code".getBytes()))) {
+            assertThatThrownBy(() -> EmployeeCursor.decode(bad)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    // Mongo xếp null đầu tiên khi ASC, cuối cùng khi DESC
+
+    @Test
+    void ascendingAfterValueSkipsNulls() {
+        Document d = EmployeeRepoImpl.keysetAfter(new EmployeeCursor("code", false, "NV05", "e5")).getCriteriaObject();
+        assertThat(d).isEqualTo(new Document("$or", List.of(
+                new Document("code", new Document("$gt", "NV05")),
+                new Document("$and", List.of(new Document("code", "NV05"), new Document("_id", new Document("$gt", "e5")))))));
+    }
+
+    @Test
+    void ascendingAfterNullContinuesWithNullsThenAllValues() {
+        Document d = EmployeeRepoImpl.keysetAfter(new EmployeeCursor("code", false, null, "e5")).getCriteriaObject();
+        assertThat(d).isEqualTo(new Document("$or", List.of(
+                new Document("$and", List.of(new Document("code", null), new Document("_id", new Document("$gt", "e5")))),
+                new Document("code", new Document("$ne", null)))));
+    }
+
+    @Test
+    void descendingAfterValueStillReachesNulls() {
+        Document d = EmployeeRepoImpl.keysetAfter(new EmployeeCursor("code", true, "NV05", "e5")).getCriteriaObject();
+        assertThat(d).isEqualTo(new Document("$or", List.of(
+                new Document("code", new Document("$lt", "NV05")),
+                new Document("$and", List.of(new Document("code", "NV05"), new Document("_id", new Document("$lt", "e5")))),
+                new Document("code", null))));
+    }
+
+    @Test
+    void descendingAfterNullOnlyHasRemainingNulls() {
+        Document d = EmployeeRepoImpl.keysetAfter(new EmployeeCursor("code", true, null, "e5")).getCriteriaObject();
+        assertThat(d).isEqualTo(new Document("$and", List.of(
+                new Document("code", null), new Document("_id", new Document("$lt", "e5")))));
+    }
+}
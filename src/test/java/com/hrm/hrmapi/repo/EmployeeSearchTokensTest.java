@@ -0,0 +1,48 @@
+package com.hrm.hrmapi.repo;
+
+import com.hrm.hrmapi.domain.Employee;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmployeeSearchTokensTest {
+
+    @Test
+    void foldLowercasesAndStripsVietnameseMarks() {
+        assertThat(EmployeeSearchTokens.fold("Nguyễn Đức Thắng")).isEqualTo("nguyen duc thang");
+        assertThat(EmployeeSearchTokens.fold("ĐẶNG THỊ Ánh")).isEqualTo("dang thi anh");
+        assertThat(EmployeeSearchTokens.fold(null)).isEmpty();
+    }
+
+    @Test
+    void wordsSplitOnAnyNonLetterOrDigit() {
+        assertThat(EmployeeSearchTokens.words("  Trần-Văn,B  (09.123)")).containsExactly("tran", "van", "b", "09", "123");
+        assertThat(EmployeeSearchTokens.words("")).isEmpty();
+    }
+
+    @Test
+    void tokensHoldEveryPrefixOfEveryWord() {
+        var e = Employee.builder().code("NV-2025-0001").fullName("Lê Ánh").department("IT").build();
+        var tokens = EmployeeSearchTokens.tokens(e);
+
+        assertThat(tokens).contains("l", "le", "a", "an", "anh", "i", "it", "nv", "2025", "0001");
+        // mã gõ liền không dấu gạch
+        assertThat(tokens).contains("nv2", "nv20250001");
+        assertThat(tokens).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void prefixesAreCappedAtMaxPrefix() {
+        String longWord = "a".repeat(EmployeeSearchTokens.MAX_PREFIX + 5);
+        var tokens = EmployeeSearchTokens.tokens(Employee.builder().fullName(longWord).build());
+        assertThat(tokens).allSatisfy(t -> assertThat(t.length()).isLessThanOrEqualTo(EmployeeSearchTokens.MAX_PREFIX));
+        assertThat(tokens).contains("a".repeat(EmployeeSearchTokens.MAX_PREFIX));
+    }
+
+    @Test
+    void queryTokensAreFoldedTruncatedAndDeduplicated() {
+        String longWord = "b".repeat(EmployeeSearchTokens.MAX_PREFIX + 3);
+        assertThat(EmployeeSearchTokens.queryTokens("Ng  ÁN ng " + longWord))
+                .containsExactly("ng", "an", "b".repeat(EmployeeSearchTokens.MAX_PREFIX));
+    }
+}
@@ -0,0 +1,61 @@
+package com.hrm.hrmapi.security;
+
+import com.hrm.hrmapi.domain.User;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+    private static JwtService service(int verifiedMaxSize) {
+        var s = new JwtService();
+        ReflectionTestUtils.setField(s, "secret", "test-secret-test-secret-test-secret-0123456789");
+        ReflectionTestUtils.setField(s, "ttl", 60L);
+        ReflectionTestUtils.setField(s, "verifiedMaxSize", verifiedMaxSize);
+        ReflectionTestUtils.setField(s, "mode", "user");
+        s.init();
+        return s;
+    }
+
+    private static User user(String id) {
+        return User.builder().id(id).email(id + "@hrm.local").role(User.Role.EMPLOYEE).build();
+    }
+
+    @Test
+    void sameTokenIsVerifiedOnce() {
+        var jwt = service(10);
+        String token = jwt.issue(user("u1"));
+
+        var first = jwt.parse(token);
+
+        assertThat(jwt.parse(token)).isSameAs(first);
+        assertThat(first.getBody().getSubject()).isEqualTo("u1");
+    }
+
+    @Test
+    void cacheStopsGrowingAtMaxSize() {
+        var jwt = service(1);
+        String t1 = jwt.issue(user("u1"));
+        String t2 = jwt.issue(user("u2"));
+        jwt.parse(t1);
+
+        // cache đầy (t1 còn hạn) -> t2 verify lại mỗi lần
+        assertThat(jwt.parse(t2)).isNotSameAs(jwt.parse(t2));
+        assertThat(jwt.parse(t1)).isSameAs(jwt.parse(t1));
+    }
+
+    @Test
+    void tamperedTokenIsNotServedFromCache() {
+        var jwt = service(10);
+        String token = jwt.issue(user("u1"));
+        jwt.parse(token);
+
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwt.parse(tampered)).isInstanceOf(JwtException.class);
+    }
+}
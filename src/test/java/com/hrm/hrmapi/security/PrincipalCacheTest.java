@@ -0,0 +1,92 @@
+package com.hrm.hrmapi.security;
+
+import com.hrm.hrmapi.domain.User;
+import com.hrm.hrmapi.repo.UserRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PrincipalCacheTest {
+
+    private final UserRepo users = mock(UserRepo.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private PrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PrincipalCache(users, meters);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        cache.init();
+        for (String id : new String[]{"u1", "u2", "u3"}) {
+            when(users.findById(id)).thenReturn(Optional.of(User.builder().id(id).email(id + "@hrm.local")
+                    .role(User.Role.EMPLOYEE).build()));
+        }
+    }
+
+    @Test
+    void secondLookupIsServedFromCache() {
+        cache.get("u1", null);
+        cache.get("u1", null);
+
+        verify(users, times(1)).findById("u1");
+        assertThat(meters.counter("hrm.auth.principal.cache", "result", "hit").count()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        cache.get("u1", null);
+        cache.invalidate("u1");
+        cache.get("u1", null);
+
+        verify(users, times(2)).findById("u1");
+    }
+
+    @Test
+    void loadThatRacesWithInvalidateIsNotCached() {
+        // user bị sửa (save + invalidate) trong lúc findById đang đọc bản cũ
+        when(users.findById("u1")).thenAnswer(inv -> {
+            cache.invalidate("u1");
+            return Optional.of(User.builder().id("u1").fullName("old").build());
+        });
+        cache.get("u1", null);
+        cache.get("u1", null);
+
+        verify(users, times(2)).findById("u1");
+    }
+
+    @Test
+    void entryLoadedBeforeTokenIssueIsReloaded() {
+        cache.get("u1", null);
+        cache.get("u1", Instant.now().plusSeconds(5));
+
+        verify(users, times(2)).findById("u1");
+    }
+
+    @Test
+    void callersGetCopiesNotTheSharedEntry() {
+        cache.get("u1", null).setFullName("changed by controller");
+
+        assertThat(cache.get("u1", null).getFullName()).isNull();
+    }
+
+    @Test
+    void sizeIsBounded() {
+        cache.get("u1", null);
+        cache.get("u2", null);
+        cache.get("u3", null);
+
+        assertThat(meters.get("hrm.auth.principal.cache.size").gauge().value()).isLessThanOrEqualTo(2);
+        assertThat(meters.counter("hrm.auth.principal.cache", "result", "eviction").count()).isEqualTo(1);
+    }
+}
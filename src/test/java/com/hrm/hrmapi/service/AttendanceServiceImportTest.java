@@ -0,0 +1,143 @@
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.domain.AttendanceBatch;
+import com.hrm.hrmapi.domain.WorkSchedule;
+import com.hrm.hrmapi.error.LeaseLostException;
+import com.hrm.hrmapi.repo.AttendanceBatchRepo;
+import com.hrm.hrmapi.repo.AttendanceRepo;
+import com.hrm.hrmapi.repo.EmployeeRepo;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Ánh xạ lỗi bulk upsert về đúng dòng CSV, và lỗi cả lô chỉ được tính 1 lần */
+class AttendanceServiceImportTest {
+
+    private static final String CSV = """
+            employeeCode,fullName,date,checkIn,checkOut,source
+            NV01,A,2025-03-03,08:00,17:00,
+            NV02,B,2025-03-04,08:00,17:00,
+            NV03,C,2025-03-05,08:00,17:00,
+            NV99,X,2025-03-05,08:00,17:00,
+            """;
+
+    private final AttendanceRepo attendanceRepo = mock(AttendanceRepo.class);
+    private final AttendanceBatchRepo batchRepo = mock(AttendanceBatchRepo.class);
+    private final EmployeeRepo employeeRepo = mock(EmployeeRepo.class);
+    private final HolidayCalendar holidayCalendar = mock(HolidayCalendar.class);
+    private final WorkScheduleService scheduleService = mock(WorkScheduleService.class);
+    private final AttendanceMonthlyService monthlyService = mock(AttendanceMonthlyService.class);
+
+    private AttendanceService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AttendanceService(attendanceRepo, batchRepo, employeeRepo, holidayCalendar, scheduleService, monthlyService);
+        ReflectionTestUtils.setField(service, "importBatchSize", 1000);
+
+        when(employeeRepo.loadCodeIndex()).thenReturn(Map.of("nv01", "e1", "nv02", "e2", "nv03", "e3"));
+        when(scheduleService.getOrDefault()).thenReturn(WorkSchedule.builder()
+                .startTime(LocalTime.of(8, 0)).endTime(LocalTime.of(17, 0)).build());
+        when(batchRepo.save(any(AttendanceBatch.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    private AttendanceBatch run() {
+        var batch = AttendanceBatch.builder().totalRows(0).success(0).failed(0).errors(new ArrayList<>()).build();
+        return service.runImport(batch, new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void bulkErrorIndexPointsAtTheMatchingCsvRow() {
+        BulkOperationException ex = mock(BulkOperationException.class);
+        when(ex.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)));
+        doThrow(ex).when(attendanceRepo).bulkUpsert(any());
+
+        var batch = run();
+
+        assertThat(batch.getStatus()).isEqualTo("DONE");
+        assertThat(batch.getTotalRows()).isEqualTo(4);
+        assertThat(batch.getSuccess()).isEqualTo(2);
+        assertThat(batch.getFailed()).isEqualTo(2);
+        // header là dòng 1 -> phần tử thứ 2 của lô (index 1) là dòng 3
+        assertThat(batch.getErrors()).containsExactlyInAnyOrder(
+                "Row 5: Employee not found: NV99",
+                "Row 3: E11000 duplicate key");
+    }
+
+    @Test
+    void chunkFailureCountsEachRowOnce() {
+        when(attendanceRepo.findByEmployeeIdInAndDateBetween(anyCollection(), any(), any()))
+                .thenThrow(new IllegalStateException("mongo down"));
+
+        var batch = run();
+
+        assertThat(batch.getStatus()).isEqualTo("DONE");
+        assertThat(batch.getSuccess()).isZero();
+        assertThat(batch.getFailed()).isEqualTo(4);
+        assertThat(batch.getSuccess() + batch.getFailed()).isLessThanOrEqualTo(batch.getTotalRows());
+        assertThat(batch.getErrors()).containsExactlyInAnyOrder(
+                "Row 5: Employee not found: NV99",
+                "Rows 2-4 (3 rows): mongo down");
+    }
+
+    @Test
+    void chunksAreFlushedAtBatchSizeAndNotRewritten() {
+        ReflectionTestUtils.setField(service, "importBatchSize", 2);
+
+        var batch = run();
+
+        verify(attendanceRepo, times(2)).bulkUpsert(any());
+        assertThat(batch.getSuccess()).isEqualTo(3);
+        assertThat(batch.getFailed()).isEqualTo(1);
+    }
+
+    @Test
+    void asyncBatchStopsWhenItsLeaseIsTakenOver() {
+        ReflectionTestUtils.setField(service, "importBatchSize", 2);
+        when(batchRepo.saveIfOwner(any(AttendanceBatch.class), eq("me"))).thenReturn(false);
+        var batch = AttendanceBatch.builder().id("b1").owner("me")
+                .totalRows(0).success(0).failed(0).errors(new ArrayList<>()).build();
+
+        assertThatThrownBy(() -> service.runImport(batch, new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(LeaseLostException.class);
+
+        // dừng ngay ở lần lưu tiến độ đầu tiên: không ghi lô sau, không ghi đè batch vô điều kiện
+        verify(attendanceRepo, times(1)).bulkUpsert(any());
+        verify(batchRepo, never()).save(any(AttendanceBatch.class));
+    }
+
+    @Test
+    void asyncBatchKeepsWritingWhileItOwnsTheLease() {
+        when(batchRepo.saveIfOwner(any(AttendanceBatch.class), eq("me"))).thenReturn(true);
+        var batch = AttendanceBatch.builder().id("b1").owner("me")
+                .totalRows(0).success(0).failed(0).errors(new ArrayList<>()).build();
+
+        var done = service.runImport(batch, new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(done.getStatus()).isEqualTo("DONE");
+        verify(batchRepo).saveIfOwner(batch, "me");
+        verify(batchRepo, never()).save(any(AttendanceBatch.class));
+    }
+}
@@ -0,0 +1,55 @@
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.domain.Employee;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmployeeImportServiceTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void bulkWriteErrorsAreMappedBackToTheirRows() {
+        MongoTemplate mongo = mock(MongoTemplate.class);
+        BulkOperations ops = mock(BulkOperations.class);
+        when(mongo.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(Employee.class))).thenReturn(ops);
+
+        // lô 1 = dòng [1, 2], lô 2 = dòng [3] (dòng 0 đã lỗi validate -> null, không insert)
+        BulkOperationException first = mock(BulkOperationException.class);
+        when(first.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)));
+        BulkOperationException second = mock(BulkOperationException.class);
+        when(second.getErrors()).thenReturn(List.of(new BulkWriteError(121, "Document failed validation", new BsonDocument(), 0)));
+        when(ops.execute()).thenThrow(first).thenThrow(second);
+
+        var service = new EmployeeImportService(mongo, null, null, null, null);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+
+        Employee[] docs = {null, Employee.builder().code("A").build(), Employee.builder().code("B").build(),
+                Employee.builder().code("C").build()};
+        List<String>[] errors = new List[docs.length];
+        for (int i = 0; i < errors.length; i++) errors[i] = new ArrayList<>();
+
+        service.insertBatches(docs, errors, Employee.class);
+
+        verify(ops, times(3)).insert(any(Object.class));
+        assertThat(errors[0]).isEmpty();
+        assertThat(errors[1]).isEmpty();
+        assertThat(errors[2]).containsExactly("insert: duplicate key");
+        assertThat(errors[3]).containsExactly("insert: Document failed validation");
+    }
+}
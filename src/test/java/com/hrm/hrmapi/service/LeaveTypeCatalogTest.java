@@ -0,0 +1,57 @@
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.domain.LeaveType;
+import com.hrm.hrmapi.repo.LeaveTypeRepo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LeaveTypeCatalogTest {
+
+    private final LeaveTypeRepo repo = mock(LeaveTypeRepo.class);
+    private final LeaveTypeCatalog catalog = new LeaveTypeCatalog(repo);
+
+    private static LeaveType type(String code, Boolean paid) {
+        var t = new LeaveType();
+        t.setCode(code);
+        t.setPaid(paid);
+        return t;
+    }
+
+    @Test
+    void lookupIsCaseAndWhitespaceInsensitive() {
+        when(repo.findAll()).thenReturn(List.of(type(" al ", true), type("UNPAID", false)));
+
+        assertThat(catalog.byCode("AL")).isNotNull();
+        assertThat(catalog.byCode(" unpaid")).isNotNull();
+        assertThat(catalog.byCode("SICK")).isNull();
+        assertThat(catalog.byCode(null)).isNull();
+        verify(repo, times(1)).findAll();
+    }
+
+    @Test
+    void onlyExplicitFalseIsUnpaid() {
+        when(repo.findAll()).thenReturn(List.of(type("AL", true), type("UNPAID", false), type("OLD", null)));
+
+        assertThat(catalog.isUnpaid("UNPAID")).isTrue();
+        assertThat(catalog.isUnpaid("AL")).isFalse();
+        assertThat(catalog.isUnpaid("OLD")).isFalse();
+        assertThat(catalog.isUnpaid("MISSING")).isFalse();
+    }
+
+    @Test
+    void invalidateReloadsFromRepo() {
+        when(repo.findAll()).thenReturn(List.of(type("AL", true))).thenReturn(List.of(type("AL", false)));
+
+        assertThat(catalog.isUnpaid("AL")).isFalse();
+        catalog.invalidate();
+        assertThat(catalog.isUnpaid("AL")).isTrue();
+        verify(repo, times(2)).findAll();
+    }
+}
@@ -0,0 +1,94 @@
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.payroll.PayrollComponent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayrollFormulaEngineTest {
+
+    private final PayrollFormulaEngine engine = new PayrollFormulaEngine();
+
+    private static BigDecimal[] vars(Map<String, String> values) {
+        BigDecimal[] v = new BigDecimal[PayrollFormulaEngine.VARIABLES.size()];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = new BigDecimal(values.getOrDefault(PayrollFormulaEngine.VARIABLES.get(i), "0"));
+        }
+        return v;
+    }
+
+    private BigDecimal eval(String expr, Map<String, String> values) {
+        return engine.compile(expr).eval(vars(values));
+    }
+
+    @Test
+    void precedenceParenthesesAndNegation() {
+        assertThat(eval("1 + 2 * 3", Map.of())).isEqualByComparingTo("7");
+        assertThat(eval("(1 + 2) * 3", Map.of())).isEqualByComparingTo("9");
+        assertThat(eval("-2 * -3 - 1", Map.of())).isEqualByComparingTo("5");
+    }
+
+    @Test
+    void divisionUsesScaleTwoHalfUp() {
+        assertThat(eval("10 / 3", Map.of())).isEqualByComparingTo("3.33");
+        assertThat(eval("2 / 3", Map.of())).isEqualByComparingTo("0.67");
+    }
+
+    @Test
+    void variablesAreBoundBySlot() {
+        var values = Map.of("ot_minutes_weekday", "90", "base_hourly", "100000");
+        assertThat(eval("ot_minutes_weekday / 60 * base_hourly * 1.5", values)).isEqualByComparingTo("225000");
+        assertThat(eval("OT_MINUTES_WEEKDAY", values)).isEqualByComparingTo("90");
+    }
+
+    @Test
+    void minMaxAndRound() {
+        assertThat(eval("min(3, 5) + max(3, 5)", Map.of())).isEqualByComparingTo("8");
+        assertThat(eval("round(base_salary / 7, 0)", Map.of("base_salary", "1000"))).isEqualByComparingTo("143");
+        // scale âm: làm tròn tới hàng nghìn
+        assertThat(eval("round(base_salary, -3)", Map.of("base_salary", "1234567"))).isEqualByComparingTo("1235000");
+        assertThat(eval("round(1.005, 2.0)", Map.of())).isEqualByComparingTo("1.01");
+    }
+
+    @Test
+    void invalidFormulasAreRejectedAsIllegalArgument() {
+        assertThatThrownBy(() -> engine.compile("")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> engine.compile("foo + 1"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("foo");
+        assertThatThrownBy(() -> engine.compile("pow(2, 3)"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("pow");
+        assertThatThrownBy(() -> engine.compile("(1 + 2")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> engine.compile("round(1, base_salary)"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("hằng số");
+    }
+
+    @Test
+    void roundScaleMustBeASmallInteger() {
+        assertThatThrownBy(() -> engine.compile("round(base_salary, 2.5)"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("số nguyên");
+        assertThatThrownBy(() -> engine.compile("round(base_salary, 1000)"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void constantDivisionByZeroIsAFormulaError() {
+        assertThatThrownBy(() -> engine.compile("base_salary + 1 / 0")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void compiledFormulaIsCachedByIdAndVersion() {
+        var c = PayrollComponent.builder().id("OT_WEEKDAY").version(1L).expr("base_hourly * 2").build();
+        var first = engine.compile(c);
+        assertThat(engine.compile(c)).isSameAs(first);
+
+        // sửa expr mà quên tăng version -> vẫn phải compile lại
+        c.setExpr("base_hourly * 3");
+        var changed = engine.compile(c);
+        assertThat(changed).isNotSameAs(first);
+        assertThat(changed.eval(vars(Map.of("base_hourly", "10")))).isEqualByComparingTo("30");
+    }
+}
@@ -0,0 +1,82 @@
+package com.hrm.hrmapi.service;
+
+import com.hrm.hrmapi.config.InstanceId;
+import com.hrm.hrmapi.domain.RecalcTrigger;
+import com.hrm.hrmapi.payroll.PayrollCycle;
+import com.hrm.hrmapi.payroll.PayrollEnums.CycleStatus;
+import com.hrm.hrmapi.repo.AttendanceRepo;
+import com.hrm.hrmapi.repo.RecalcTriggerRepo;
+import com.hrm.hrmapi.repo.payroll.PayrollCycleRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecalcTriggerServiceTest {
+
+    private final RecalcTriggerRepo triggerRepo = mock(RecalcTriggerRepo.class);
+    private final PayrollCycleRepo cycleRepo = mock(PayrollCycleRepo.class);
+    private RecalcTriggerService service;
+
+    private final LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+    private final LocalDate lockedDay = thisMonth.minusMonths(2).plusDays(9);
+    private final LocalDate draftDay = thisMonth.minusMonths(1).plusDays(9);
+    private final LocalDate oldDay = thisMonth.minusYears(1);
+
+    private static PayrollCycle cycle(LocalDate anyDay, CycleStatus status) {
+        var start = anyDay.withDayOfMonth(1);
+        return PayrollCycle.builder().startDate(start).endDate(start.plusMonths(1).minusDays(1)).status(status).build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        service = new RecalcTriggerService(mock(AttendanceRecalcService.class), mock(AttendanceRepo.class),
+                triggerRepo, cycleRepo, new InstanceId());
+        service.init();
+        when(triggerRepo.save(any(RecalcTrigger.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(cycleRepo.findByStatus(CycleStatus.DRAFT)).thenReturn(List.of(cycle(draftDay, CycleStatus.DRAFT)));
+        when(cycleRepo.findByStatus(CycleStatus.LOCKED)).thenReturn(List.of(cycle(lockedDay, CycleStatus.LOCKED)));
+        when(cycleRepo.findByStatus(CycleStatus.PAID)).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private RecalcTrigger saved() {
+        var captor = ArgumentCaptor.forClass(RecalcTrigger.class);
+        verify(triggerRepo).save(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void holidayRecalcSkipsSettledAndClosedPeriods() {
+        LocalDate today = LocalDate.now();
+        service.onHolidayChanged(new HolidayChangedEvent("UPDATE", Set.of(lockedDay, draftDay, oldDay, today)));
+
+        var t = saved();
+        assertThat(t.getRanges()).extracting(RecalcTrigger.Range::getFrom).containsExactly(draftDay, today);
+        assertThat(t.getSkippedDates()).containsExactly(oldDay, lockedDay);
+    }
+
+    @Test
+    void onlySettledDatesRecordsATriggerWithoutRunningIt() {
+        service.onHolidayChanged(new HolidayChangedEvent("DELETE", Set.of(lockedDay)));
+
+        var t = saved();
+        assertThat(t.getStatus()).isEqualTo("DONE");
+        assertThat(t.getRanges()).isEmpty();
+        assertThat(t.getSkippedDates()).containsExactly(lockedDay);
+    }
+}
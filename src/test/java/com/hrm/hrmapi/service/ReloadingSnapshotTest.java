@@ -0,0 +1,50 @@
+package com.hrm.hrmapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReloadingSnapshotTest {
+
+    @Test
+    void loadsOnceUntilInvalidated() {
+        var loads = new AtomicInteger();
+        var snapshot = new ReloadingSnapshot<>(loads::incrementAndGet, Duration.ofMinutes(5));
+
+        assertThat(snapshot.get()).isEqualTo(1);
+        assertThat(snapshot.get()).isEqualTo(1);
+
+        snapshot.invalidate();
+        assertThat(snapshot.get()).isEqualTo(2);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidateDuringLoadIsNotLost() {
+        var loads = new AtomicInteger();
+        var self = new AtomicReference<ReloadingSnapshot<Integer>>();
+        self.set(new ReloadingSnapshot<>(() -> {
+            int n = loads.incrementAndGet();
+            // lần nạp đầu đọc xong dữ liệu cũ thì có người ghi + invalidate
+            if (n == 1) self.get().invalidate();
+            return n;
+        }, Duration.ofMinutes(5)));
+
+        assertThat(self.get().get()).isEqualTo(1);   // caller đầu vẫn nhận bản vừa nạp
+        assertThat(self.get().get()).isEqualTo(2);   // nhưng bản đó không được giữ lại
+        assertThat(self.get().get()).isEqualTo(2);
+    }
+
+    @Test
+    void expiresAfterMaxAge() {
+        var loads = new AtomicInteger();
+        var snapshot = new ReloadingSnapshot<>(loads::incrementAndGet, Duration.ZERO);
+
+        assertThat(snapshot.get()).isEqualTo(1);
+        assertThat(snapshot.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,114 @@
+package com.hrm.hrmapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private ReportCache cache;
+
+    private static final ReportCache.Key COMPANY = new ReportCache.Key("attendance", "2025-03", null, "csv");
+    private static final ReportCache.Key SALES = new ReportCache.Key("attendance", "2025-03", "Sales", "csv");
+    private static final ReportCache.Key IT = new ReportCache.Key("attendance", "2025-03", "IT", "csv");
+    private static final ReportCache.Key APRIL = new ReportCache.Key("attendance", "2025-04", null, "csv");
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new ReportCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "dir", dir.toString());
+        ReflectionTestUtils.setField(cache, "maxBytes", 1L << 20);
+        ReflectionTestUtils.setField(cache, "maxAgeSeconds", 300L);
+        cache.init();
+    }
+
+    private void render(ReportCache.Key key, String body) throws IOException {
+        var response = new ByteArrayOutputStream();
+        try (var fill = cache.begin(key, response)) {
+            fill.out().write(body.getBytes(StandardCharsets.UTF_8));
+            fill.commit();
+        }
+        assertThat(response.toString(StandardCharsets.UTF_8)).isEqualTo(body);
+    }
+
+    @Test
+    void committedRenderIsServedWithContentEtag() throws IOException {
+        render(COMPANY, "a,b\r\n");
+
+        var e = cache.get(COMPANY);
+        assertThat(e).isNotNull();
+        assertThat(Files.readString(e.file())).isEqualTo("a,b\r\n");
+        assertThat(e.etag()).hasSize(64);
+    }
+
+    @Test
+    void departmentChangeDropsThatDepartmentAndCompanyWideOnly() throws IOException {
+        render(COMPANY, "all");
+        render(SALES, "sales");
+        render(IT, "it");
+        render(APRIL, "april");
+
+        cache.onDataChanged(new ReportDataChangedEvent(Set.of(YearMonth.of(2025, 3)), null, Set.of("Sales")));
+
+        assertThat(cache.get(COMPANY)).isNull();
+        assertThat(cache.get(SALES)).isNull();
+        assertThat(cache.get(IT)).isNotNull();
+        assertThat(cache.get(APRIL)).isNotNull();
+    }
+
+    @Test
+    void employeeChangeDropsEveryDepartmentOfThatMonth() throws IOException {
+        render(SALES, "sales");
+        render(IT, "it");
+        render(APRIL, "april");
+
+        cache.onDataChanged(new ReportDataChangedEvent(Set.of(YearMonth.of(2025, 3)), Set.of("e1"), null));
+
+        assertThat(cache.get(SALES)).isNull();
+        assertThat(cache.get(IT)).isNull();
+        assertThat(cache.get(APRIL)).isNotNull();
+    }
+
+    @Test
+    void allMonthsInvalidation() throws IOException {
+        render(COMPANY, "all");
+        render(APRIL, "april");
+
+        cache.onDataChanged(new ReportDataChangedEvent(null, null, null));
+
+        assertThat(cache.get(COMPANY)).isNull();
+        assertThat(cache.get(APRIL)).isNull();
+    }
+
+    @Test
+    void renderThatRacesWithInvalidationIsNotStored() throws IOException {
+        var response = new ByteArrayOutputStream();
+        try (var fill = cache.begin(COMPANY, response)) {
+            fill.out().write("stale".getBytes(StandardCharsets.UTF_8));
+            cache.invalidate(Set.of("2025-03"), Set.of());
+            fill.commit();
+        }
+
+        assertThat(cache.get(COMPANY)).isNull();
+        // client vẫn nhận đủ bản render; file tạm đã bị dọn
+        assertThat(response.toString(StandardCharsets.UTF_8)).isEqualTo("stale");
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+}
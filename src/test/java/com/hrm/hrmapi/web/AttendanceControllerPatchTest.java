@@ -0,0 +1,85 @@
+package com.hrm.hrmapi.web;
+
+import com.hrm.hrmapi.domain.AttendanceRecord;
+import com.hrm.hrmapi.domain.WorkSchedule;
+import com.hrm.hrmapi.repo.AttendanceRepo;
+import com.hrm.hrmapi.service.AttendanceMonthlyService;
+import com.hrm.hrmapi.service.AttendanceService;
+import com.hrm.hrmapi.service.HolidayCalendar;
+import com.hrm.hrmapi.service.WorkScheduleService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Status quản lý PATCH tay không bị applyRules ghi đè – cả lúc PATCH lẫn các lần recalc sau */
+class AttendanceControllerPatchTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    private final AttendanceRepo attendanceRepo = mock(AttendanceRepo.class);
+    private final WorkScheduleService scheduleService = mock(WorkScheduleService.class);
+    private final WorkSchedule schedule = WorkSchedule.builder()
+            .startTime(LocalTime.of(8, 0)).endTime(LocalTime.of(17, 0)).build();
+
+    private AttendanceService service;
+    private AttendanceController controller;
+    private AttendanceRecord rec;
+
+    @BeforeEach
+    void setUp() {
+        service = new AttendanceService(attendanceRepo, null, null, mock(HolidayCalendar.class), scheduleService,
+                mock(AttendanceMonthlyService.class));
+        controller = new AttendanceController(service, null, null, mock(AttendanceMonthlyService.class), null, null, null,
+                scheduleService, attendanceRepo);
+
+        rec = AttendanceRecord.builder().id("r1").employeeId("e1").date(MONDAY).build();
+        when(attendanceRepo.findById("r1")).thenReturn(Optional.of(rec));
+        when(attendanceRepo.save(any(AttendanceRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(scheduleService.getOrDefault()).thenReturn(schedule);
+    }
+
+    private AttendanceRecord patch(String status) {
+        var body = new AttendanceController.PatchAttendanceReq();
+        body.setStatus(status);
+        return controller.patchRecord("r1", body);
+    }
+
+    @Test
+    void patchedStatusSurvivesPatchAndRecalc() {
+        // ngày thường không có giờ vào/ra: rule sẽ suy ra ABSENT
+        var saved = patch("PRESENT");
+        assertThat(saved.getStatus()).isEqualTo("PRESENT");
+        assertThat(saved.getStatusManual()).isTrue();
+
+        service.applyRules(saved, schedule);   // recalc tháng / trigger đổi lịch
+        service.applyRules(saved, schedule);
+        assertThat(saved.getStatus()).isEqualTo("PRESENT");
+    }
+
+    @Test
+    void ruleDerivedStatusIsStillRecomputed() {
+        rec.setStatus("PRESENT");               // do rule suy ra lần trước, không phải đặt tay
+
+        service.applyRules(rec, schedule);
+
+        assertThat(rec.getStatus()).isEqualTo("ABSENT");
+    }
+
+    @Test
+    void blankStatusHandsTheRecordBackToTheRules() {
+        patch("PRESENT");
+
+        var saved = patch("");
+
+        assertThat(saved.getStatusManual()).isNull();
+        assertThat(saved.getStatus()).isEqualTo("ABSENT");
+    }
+}
@@ -0,0 +1,39 @@
+package com.hrm.hrmapi.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Ô CSV theo RFC 4180: luôn bọc "...", " bên trong nhân đôi, dòng kết thúc CRLF */
+class EmployeesControllerCsvTest {
+
+    private static String row(Object... cells) throws IOException {
+        var w = new StringWriter();
+        EmployeesController.writeCsvRow(w, cells);
+        return w.toString();
+    }
+
+    @Test
+    void quotesEveryCellAndEndsWithCrlf() throws IOException {
+        assertThat(row("NV01", "Lê Ánh", LocalDate.of(2024, 1, 2))).isEqualTo("\"NV01\",\"Lê Ánh\",\"2024-01-02\"\r\n");
+    }
+
+    @Test
+    void doublesEmbeddedQuotes() throws IOException {
+        assertThat(row("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"\r\n");
+    }
+
+    @Test
+    void keepsSeparatorsAndLineBreaksInsideTheQuotedCell() throws IOException {
+        assertThat(row("a,b", "line1\r\nline2")).isEqualTo("\"a,b\",\"line1\r\nline2\"\r\n");
+    }
+
+    @Test
+    void nullBecomesEmptyCell() throws IOException {
+        assertThat(row(null, "x", null)).isEqualTo("\"\",\"x\",\"\"\r\n");
+    }
+}